@@ -0,0 +1,119 @@
+package pl.edu.agh.flowshop.engine;
+
+import pl.edu.agh.flowshop.entity.AgentState;
+import pl.edu.agh.flowshop.utils.ConfigReader;
+import pl.edu.agh.flowshop.utils.Parameters;
+import weka.core.Instance;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Builds models of requested size for benchmarks, without machines config file.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+final class BenchmarkModels {
+
+    /** Seed of benchmark models */
+    static final long SEED = 42;
+
+    /** Number of layers of benchmark models */
+    static final int LAYERS_NO = 3;
+
+    /** Maximal attribute value of random states and training examples */
+    private static final int MAX_ATTRIBUTE_VALUE = 10;
+
+    /** Number of class values of training examples */
+    private static final int CLASSES_NO = 3;
+
+    private BenchmarkModels() {
+    }
+
+    /**
+     * Creates initialized model
+     *
+     * @param machines       number of machines in every layer
+     * @param productTypes   number of product types
+     * @param history        number of history entries used for training examples
+     * @param classifierName classifier of all machines
+     */
+    static Model createModel(final int machines, final int productTypes, final int history,
+                             final String classifierName) {
+        return createModel(LAYERS_NO, machines, productTypes, history, classifierName, new Properties());
+    }
+
+    /**
+     * Creates initialized model of given number of layers
+     *
+     * @param overrides parameters set over default ones
+     */
+    static Model createModel(final int layers, final int machines, final int productTypes, final int history,
+                             final String classifierName, final Properties overrides) {
+        Properties properties = Parameters.loadProperties();
+        properties.putAll(overrides);
+        properties.setProperty("SEED", String.valueOf(SEED));
+        properties.setProperty("PRODUCT_TYPES", String.valueOf(productTypes));
+        properties.setProperty("USED_HISTORY", String.valueOf(history));
+        for (int i = 0; i < productTypes; i++) {
+            if (properties.getProperty("PRODUCT_PRICE_" + i) == null) {
+                properties.setProperty("PRODUCT_PRICE_" + i, String.valueOf(i % 4 + 1));
+            }
+        }
+
+        Map<Integer, Integer> timeTable = new HashMap<>();
+        for (int i = 0; i < productTypes; i++) {
+            timeTable.put(i, i % 4 + 2);
+        }
+        List<List<Machine>> machinesConf = new ArrayList<>();
+        for (int i = 0; i < layers; i++) {
+            List<Machine> layer = new ArrayList<>();
+            for (int j = 0; j < machines; j++) {
+                layer.add(new Machine(-1, timeTable, classifierName));
+            }
+            machinesConf.add(layer);
+        }
+
+        return ConfigReader.createModelOfMachines(new Parameters(properties), machinesConf, SEED);
+    }
+
+    /** Feeds given number of random examples to all machines of model and trains them */
+    static void train(final Model model, final int examples, final Random random) throws Exception {
+        TrainingStore store = model.getTrainingStore();
+        for (int i = 0; i < examples; i++) {
+            double[] values = new double[model.getAttributesNo()];
+            for (int j = 0; j < values.length - 1; j++) {
+                values[j] = random.nextInt(MAX_ATTRIBUTE_VALUE);
+            }
+            values[values.length - 1] = random.nextInt(CLASSES_NO);
+
+            int row = store.append(new Instance(1.0, values));
+            for (Layer layer : model.getLayers()) {
+                for (Machine machine : layer.getMachines()) {
+                    machine.addTrainData(row);
+                }
+            }
+            store.release(row);
+        }
+
+        for (Layer layer : model.getLayers()) {
+            for (Machine machine : layer.getMachines()) {
+                machine.train();
+            }
+        }
+    }
+
+    /** Creates random state of model */
+    static AgentState randomState(final Model model, final Random random) {
+        int[] values = new int[model.getAttributesNo() - 1];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(MAX_ATTRIBUTE_VALUE);
+        }
+        return new AgentState(model, values);
+    }
+}
@@ -0,0 +1,97 @@
+package pl.edu.agh.flowshop.engine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.edu.agh.flowshop.entity.Order;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@link Model#deliverOrders(OrderBook, int[], int)} with small and large books of open orders.
+ * Every call gets stock completing at most one order, delivered order is replaced by new one so book keeps its size.
+ * Delivered examples are kept by machines, so model is rebuilt before every batch of {@link #DELIVERIES} calls.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 20, batchSize = DeliverOrdersBenchmark.DELIVERIES)
+@Measurement(iterations = 50, batchSize = DeliverOrdersBenchmark.DELIVERIES)
+@Fork(1)
+public class DeliverOrdersBenchmark {
+
+    /** Number of calls in one batch */
+    static final int DELIVERIES = 1000;
+
+    /** Number of open orders */
+    @Param({"10", "10000"})
+    public int orders;
+
+    /** Number of machines in every layer */
+    @Param({"2", "32"})
+    public int machines;
+
+    @Param({"3", "10"})
+    public int productTypes;
+
+    /** Number of history entries used for training examples */
+    @Param({"3", "10"})
+    public int history;
+
+    private Model model;
+
+    private OrderBook orderBook;
+
+    private int[] stock;
+
+    private Random random;
+
+    private int turnNo;
+
+    private long ordersNo;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        this.model = BenchmarkModels.createModel(this.machines, this.productTypes, this.history, "J48");
+        this.orderBook = new OrderBook(this.productTypes);
+        this.stock = new int[this.productTypes];
+        this.random = new Random(BenchmarkModels.SEED);
+        this.turnNo = 0;
+        while (this.orderBook.size() < this.orders) {
+            this.orderBook.add(createOrder());
+        }
+    }
+
+    @Benchmark
+    public int deliverOrders() throws Exception {
+        Arrays.fill(this.stock, 0);
+        this.stock[this.turnNo % this.productTypes] = Model.MIN_ORDER_SIZE;
+        int reward = this.model.deliverOrders(this.orderBook, this.stock, this.turnNo++);
+        while (this.orderBook.size() < this.orders) {
+            this.orderBook.add(createOrder());
+        }
+        return reward;
+    }
+
+    private Order createOrder() {
+        int[] products = new int[this.productTypes];
+        products[this.random.nextInt(this.productTypes)] =
+                Model.MIN_ORDER_SIZE + this.random.nextInt(Model.MAX_ORDER_SIZE - Model.MIN_ORDER_SIZE);
+        int dueTurn = this.turnNo + Model.DUE_TIME_MIN_VALUE + this.random.nextInt(Model.DUE_TIME_RAND_MAX);
+        return new Order(this.ordersNo++, products, dueTurn, Model.MAX_REWARD_VALUE, 1, Model.MAX_REWARD_VALUE);
+    }
+}
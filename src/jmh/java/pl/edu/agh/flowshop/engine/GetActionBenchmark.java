@@ -0,0 +1,63 @@
+package pl.edu.agh.flowshop.engine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@link LearningAgent#getAction(weka.core.Instance)} for every supported classifier. Supervised
+ * classifiers are trained on random examples first, reinforcement learning agents learn while deciding.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GetActionBenchmark {
+
+    /** Number of examples machines are trained on */
+    private static final int TRAINING_EXAMPLES = 500;
+
+    @Param({"J48", "JRip", "BayesNet", "NaiveBayes", "NaiveBayesUpdateable", "IBk", "KStar", "QLearning", "Watkins",
+            "Peng"})
+    public String classifierName;
+
+    /** Number of machines in every layer */
+    @Param({"2", "8"})
+    public int machines;
+
+    @Param({"3", "10"})
+    public int productTypes;
+
+    private Model model;
+
+    private Machine machine;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        this.model = BenchmarkModels.createModel(this.machines, this.productTypes, 1, this.classifierName);
+        BenchmarkModels.train(this.model, TRAINING_EXAMPLES, new Random(BenchmarkModels.SEED));
+        this.machine = this.model.getLayers().get(0).getMachines().get(0);
+    }
+
+    @Benchmark
+    public int getAction() throws Exception {
+        return this.machine.getAction(this.model.prepareInstanceForDecision());
+    }
+}
@@ -0,0 +1,86 @@
+package pl.edu.agh.flowshop.engine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@link Layer#tick(int[])}, including decisions of machines, sequential or parallel ones. Broken
+ * machines never work again, so model is rebuilt before every batch of {@link #TICKS} ticks and batches are measured
+ * as a whole.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 20, batchSize = LayerTickBenchmark.TICKS)
+@Measurement(iterations = 50, batchSize = LayerTickBenchmark.TICKS)
+@Fork(1)
+public class LayerTickBenchmark {
+
+    /** Number of ticks in one batch */
+    static final int TICKS = 100;
+
+    /** Number of examples machines are trained on before ticks */
+    private static final int TRAINING_EXAMPLES = 200;
+
+    /** Number of machines in every layer */
+    @Param({"2", "8", "32", "256"})
+    public int machines;
+
+    @Param({"3", "10"})
+    public int productTypes;
+
+    /** True if decisions are computed on fork/join pool */
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private Layer layer;
+
+    private ForkJoinPool decisionPool;
+
+    private int[] newTasks;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws Exception {
+        Model model = BenchmarkModels.createModel(this.machines, this.productTypes, 1, "J48");
+        BenchmarkModels.train(model, TRAINING_EXAMPLES, new Random(BenchmarkModels.SEED));
+        if (this.parallel) {
+            this.decisionPool = new ForkJoinPool();
+            model.setDecisionPool(this.decisionPool);
+        }
+        this.layer = model.getLayers().get(0);
+        this.newTasks = new int[this.productTypes];
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        if (this.decisionPool != null) {
+            this.decisionPool.shutdownNow();
+            this.decisionPool = null;
+        }
+    }
+
+    @Benchmark
+    public int[] tick() throws Exception {
+        Arrays.fill(this.newTasks, 1);
+        return this.layer.tick(this.newTasks);
+    }
+}
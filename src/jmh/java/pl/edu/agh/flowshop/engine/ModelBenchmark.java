@@ -0,0 +1,85 @@
+package pl.edu.agh.flowshop.engine;
+
+import environment.IState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.edu.agh.flowshop.entity.Action;
+import pl.edu.agh.flowshop.entity.AgentState;
+import weka.core.Instance;
+
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link Model} methods used by every decision: building features and simulating actions for
+ * reinforcement learning.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelBenchmark {
+
+    /** Number of machines in every layer */
+    @Param({"2", "8", "32"})
+    public int machines;
+
+    @Param({"3", "10"})
+    public int productTypes;
+
+    /** True if model uses sparse schema, decision features are then filled only for changed layers */
+    @Param({"false", "true"})
+    public boolean sparse;
+
+    private Model model;
+
+    private AgentState state;
+
+    private AgentState nextState;
+
+    private Action action;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Properties overrides = new Properties();
+        overrides.setProperty("SPARSE_THRESHOLD", this.sparse ? "1" : "0");
+        this.model = BenchmarkModels.createModel(BenchmarkModels.LAYERS_NO, this.machines, this.productTypes, 1, "J48",
+                overrides);
+        Random random = new Random(BenchmarkModels.SEED);
+        this.state = BenchmarkModels.randomState(this.model, random);
+        this.nextState = BenchmarkModels.randomState(this.model, random);
+        Machine machine = this.model.getLayers().get(0).getMachines().get(0);
+        this.action = new Action(machine.getId(), this.productTypes - 1);
+    }
+
+    @Benchmark
+    public Instance prepareInstanceForDecision() {
+        return this.model.prepareInstanceForDecision();
+    }
+
+    @Benchmark
+    public double getReward() {
+        return this.model.getReward(this.state, this.nextState, this.action);
+    }
+
+    @Benchmark
+    public IState successorState() {
+        return this.model.successorState(this.state, this.action);
+    }
+}
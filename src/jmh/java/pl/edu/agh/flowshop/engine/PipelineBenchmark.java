@@ -0,0 +1,66 @@
+package pl.edu.agh.flowshop.engine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of whole runs of long lines, sequential against pipelined layers, see {@link LayerPipeline}. Pipelined
+ * run needs a core per layer to approach one turn per tick of slowest layer.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PipelineBenchmark {
+
+    /** Number of simulated turns of every run */
+    private static final int TURNS_NO = 200;
+
+    /** Learning turn of runs, pipeline is emptied before every learning turn */
+    private static final int LEARNING_TURN = 50;
+
+    @Param({"3", "12"})
+    public int layers;
+
+    /** Number of machines in every layer */
+    @Param({"2", "16"})
+    public int machines;
+
+    @Param({"false", "true"})
+    public boolean pipelined;
+
+    private Model model;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        Properties overrides = new Properties();
+        overrides.setProperty("TURN_LIMIT", String.valueOf(TURNS_NO));
+        overrides.setProperty("LEARNING_TURN", String.valueOf(LEARNING_TURN));
+        overrides.setProperty("PIPELINED_LAYERS", String.valueOf(this.pipelined));
+        this.model = BenchmarkModels.createModel(this.layers, this.machines, 3, 1, "J48", overrides);
+    }
+
+    @Benchmark
+    public List<Double> run() throws Exception {
+        return this.model.run();
+    }
+}
@@ -0,0 +1,112 @@
+package pl.edu.agh.flowshop.engine;
+
+import environment.IState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.edu.agh.flowshop.entity.Action;
+import pl.edu.agh.flowshop.entity.AgentState;
+import qlearning.IRewardStore;
+import qlearning.RewardMemorizer;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of Q-value updates in {@link QTable} and piqle {@link RewardMemorizer} it replaced, done between random
+ * states the way Q-learning selectors learn.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QTableBenchmark {
+
+    /** Largest buffer level in generated states */
+    private static final int MAX_QUANTITY = 10;
+
+    @Param({"qtable", "memorizer"})
+    public String store;
+
+    /** Number of distinct states */
+    @Param({"1000", "100000"})
+    public int states;
+
+    /** Number of machines in every of 3 layers */
+    @Param({"2"})
+    public int machines;
+
+    @Param({"3", "10"})
+    public int productTypes;
+
+    private IRewardStore rewardStore;
+
+    private IState[] stateList;
+
+    /** Equal copies of {@link #stateList}, learning looks up states created by environment, not stored ones */
+    private IState[] lookupStates;
+
+    private Action[] actions;
+
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.random = new Random(BenchmarkModels.SEED);
+        int width = 3 * (this.machines + this.productTypes);
+        this.rewardStore = "qtable".equals(this.store) ? new QTable(width, this.productTypes) : new RewardMemorizer();
+
+        this.stateList = new IState[this.states];
+        this.lookupStates = new IState[this.states];
+        for (int i = 0; i < this.states; i++) {
+            int[] values = new int[width];
+            for (int j = 0; j < width; j++) {
+                values[j] = this.random.nextInt(MAX_QUANTITY);
+            }
+            this.stateList[i] = new AgentState(null, values);
+            this.lookupStates[i] = new AgentState(null, values.clone());
+        }
+        this.actions = new Action[this.productTypes];
+        for (int i = 0; i < this.productTypes; i++) {
+            this.actions[i] = new Action(0, i);
+        }
+
+        // table is filled, so benchmark measures updates of existing values
+        for (IState state : this.stateList) {
+            for (Action action : this.actions) {
+                this.rewardStore.put(state, action, state, 0);
+            }
+        }
+    }
+
+    /** One Q-learning update: best value of next state, then value of state and action moved towards it */
+    @Benchmark
+    public double update() {
+        IState state = this.lookupStates[this.random.nextInt(this.states)];
+        IState nextState = this.lookupStates[this.random.nextInt(this.states)];
+        Action action = this.actions[this.random.nextInt(this.productTypes)];
+
+        double best = Double.NEGATIVE_INFINITY;
+        for (Action nextAction : this.actions) {
+            best = Math.max(best, this.rewardStore.get(nextState, nextAction));
+        }
+        double value = this.rewardStore.get(state, action);
+        value += 0.1 * (1 + 0.9 * best - value);
+        this.rewardStore.put(state, action, nextState, value);
+        return value;
+    }
+}
@@ -1,10 +1,23 @@
 package pl.edu.agh.flowshop;
 
-import pl.edu.agh.flowshop.engine.Model;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pl.edu.agh.flowshop.engine.ParameterSweep;
+import pl.edu.agh.flowshop.engine.ReplicationRunner;
+import pl.edu.agh.flowshop.utils.BinaryMetricsSink;
+import pl.edu.agh.flowshop.utils.ChartExporter;
 import pl.edu.agh.flowshop.utils.ConfigReader;
+import pl.edu.agh.flowshop.utils.CsvMetricsSink;
 import pl.edu.agh.flowshop.utils.GraphPanel;
+import pl.edu.agh.flowshop.utils.InMemoryMetricsSink;
+import pl.edu.agh.flowshop.utils.MetricsSink;
+import pl.edu.agh.flowshop.utils.Parameters;
 
 import javax.swing.*;
+import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -14,10 +27,58 @@ import java.util.List;
  */
 public class Experiment {
 
+    private final static Logger logger = LogManager.getLogger(Experiment.class);
+
+    /** First argument switching experiment to parameter sweep */
+    private static final String SWEEP_MODE = "sweep";
+
+    /** Extension of metrics files written as CSV */
+    private static final String CSV_EXTENSION = ".csv";
+
+    /** File chart is exported to on headless machines when CHART_FILE is not configured */
+    private static final String DEFAULT_CHART_FILE = "queue_size.png";
+
+    /**
+     * Runs experiment. Optional arguments: number of replications and number of threads used to run them.
+     * For more than one replication mean queue size is presented. Single run with METRICS_FILE configured streams
+     * metrics to that file instead. Chart is exported to CHART_FILE if it is configured or if there is no display,
+     * otherwise it is shown in window.
+     * </br>
+     * With <code>sweep [definition] [output] [replications] [threads]</code> arguments runs parameter sweep instead,
+     * see {@link ParameterSweep}.
+     */
     public static void main(String[] args) {
         try {
-            Model model = ConfigReader.createModel();
-            List<Double> results = model.run();
+            if (args.length > 0 && SWEEP_MODE.equals(args[0])) {
+                runSweep(args);
+                return;
+            }
+
+            int replications = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+            int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+            Parameters parameters = Parameters.load();
+            List<Double> results;
+            if (replications > 1) {
+                results = new ReplicationRunner(parameters, replications, threads).run().getMeanList();
+            } else if (parameters.getMetricsFile() != null) {
+                // long runs stream metrics to file, which can be tailed while experiment runs
+                try (MetricsSink sink = createFileSink(Paths.get(parameters.getMetricsFile()))) {
+                    ConfigReader.createModel(parameters).run(sink);
+                }
+                return;
+            } else {
+                InMemoryMetricsSink sink = new InMemoryMetricsSink(parameters.getTurnLimit());
+                ConfigReader.createModel(parameters).run(sink);
+                results = sink.getQueueSizesList();
+            }
+            if (parameters.getChartFile() != null || GraphicsEnvironment.isHeadless()) {
+                Path chart = Paths.get(parameters.getChartFile() != null ? parameters.getChartFile()
+                        : DEFAULT_CHART_FILE);
+                ChartExporter.export(results, chart);
+                logger.info("Chart written to " + chart.toAbsolutePath());
+                return;
+            }
             GraphPanel graph;
             graph = createAndShowGui();
             graph.setScores(results);
@@ -26,6 +87,24 @@ public class Experiment {
         }
     }
 
+    private static void runSweep(final String[] args) throws Exception {
+        Path definition = Paths.get(args.length > 1 ? args[1] : "sweep.properties");
+        Path output = Paths.get(args.length > 2 ? args[2] : "sweep_results.csv");
+        int replications = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+
+        new ParameterSweep(ParameterSweep.readDefinition(definition), Parameters.loadProperties(), replications,
+                threads).run(output);
+    }
+
+    /** Creates sink writing CSV file if its name ends with .csv, binary one otherwise */
+    private static MetricsSink createFileSink(final Path path) throws IOException {
+        if (path.getFileName().toString().toLowerCase().endsWith(CSV_EXTENSION)) {
+            return new CsvMetricsSink(path);
+        }
+        return new BinaryMetricsSink(path);
+    }
+
     private static GraphPanel createAndShowGui() {
         GraphPanel mainPanel = new GraphPanel(new ArrayList<Double>());
         JFrame frame = new JFrame("FlowShop_Graph");
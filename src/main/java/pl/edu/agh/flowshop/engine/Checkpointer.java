@@ -0,0 +1,194 @@
+package pl.edu.agh.flowshop.engine;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pl.edu.agh.flowshop.utils.StateInput;
+import pl.edu.agh.flowshop.utils.StateOutput;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Writes checkpoints of {@link Model} every {@link #interval} turns and restores model from last one.
+ * </br>
+ * Main loop only captures state at start of turn, see {@link Model#saveState(StateOutput)}: primitive state is
+ * copied, objects which are not modified anymore are kept by reference and only learners modified in place are
+ * copied. Checkpoint is encoded and written by background thread into temporary file, which then replaces previous
+ * checkpoint, so crash while writing leaves previous checkpoint intact. At most one checkpoint is written at a time.
+ * </br>
+ * Checkpoint file starts with header: magic and format version, followed by state, see {@link StateOutput}.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+public class Checkpointer implements Closeable {
+
+    /** Value marking checkpoint files */
+    public static final int MAGIC = 0x464C4350;
+
+    /** Version of file format */
+    public static final int VERSION = 1;
+
+    /** Suffix of checkpoint files */
+    public static final String SUFFIX = ".ckpt";
+
+    /** Suffix of checkpoint being written */
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    /** Size of file header in bytes */
+    private static final int HEADER_SIZE = 8;
+
+    private final static Logger logger = LogManager.getLogger(Checkpointer.class);
+
+    /** Checkpoint file */
+    private final Path path;
+
+    /** Number of turns between checkpoints */
+    private final int interval;
+
+    /** Thread writing checkpoints */
+    private final ExecutorService writer;
+
+    /** Checkpoint being written, null if there is none */
+    private Future<?> pendingWrite;
+
+    /** First turn in which next checkpoint is taken */
+    private int nextTurnNo;
+
+    /**
+     * Creates checkpointer, creating directory if needed
+     *
+     * @param directory directory of checkpoints
+     * @param name      name of checkpoint, unique within directory
+     * @param interval  number of turns between checkpoints
+     */
+    public Checkpointer(final Path directory, final String name, final int interval) throws IOException {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Checkpoint interval must be positive, got: " + interval);
+        }
+        Files.createDirectories(directory);
+        this.path = directory.resolve(name + SUFFIX);
+        this.interval = interval;
+        this.writer = Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("checkpoint-%d").build());
+    }
+
+    public Path getPath() {
+        return this.path;
+    }
+
+    /** Returns true if there is checkpoint to restore */
+    public boolean exists() {
+        return Files.isRegularFile(this.path);
+    }
+
+    /** Sets turn main loop starts from, first checkpoint is taken {@link #interval} turns later */
+    public void start(final int turnNo) {
+        this.nextTurnNo = (turnNo / this.interval + 1) * this.interval;
+    }
+
+    /** Returns true if checkpoint should be taken at start of given turn */
+    public boolean isDue(final int turnNo) {
+        return turnNo >= this.nextTurnNo;
+    }
+
+    /** Captures state of model at start of given turn and writes it in background */
+    public void save(final Model model, final int turnNo) throws Exception {
+        awaitWrite();
+        final StateOutput output = new StateOutput();
+        model.saveState(output);
+        this.nextTurnNo = (turnNo / this.interval + 1) * this.interval;
+
+        this.pendingWrite = this.writer.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws IOException {
+                long start = System.nanoTime();
+                write(output);
+                logger.debug("Checkpoint of turn " + turnNo + " written to " + path + " in "
+                        + (System.nanoTime() - start) / 1000000 + " ms, " + Files.size(path) + " bytes.");
+                return null;
+            }
+        });
+    }
+
+    /** Restores model from checkpoint */
+    public void restore(final Model model) throws IOException {
+        try (FileChannel channel = FileChannel.open(this.path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    throw new IOException("Not a checkpoint file: " + this.path);
+                }
+            }
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a checkpoint file: " + this.path);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported checkpoint version " + version + ": " + this.path);
+            }
+            model.restoreState(StateInput.read(channel));
+        }
+    }
+
+    /** Waits for checkpoint being written, rethrows its failure */
+    public void awaitWrite() throws Exception {
+        if (this.pendingWrite == null) {
+            return;
+        }
+
+        try {
+            this.pendingWrite.get();
+        } catch (ExecutionException e) {
+            throw new Exception("Writing checkpoint " + this.path + " failed.", e.getCause());
+        } finally {
+            this.pendingWrite = null;
+        }
+    }
+
+    /** Waits for checkpoint being written and deletes checkpoint, used when run is finished */
+    public void delete() throws Exception {
+        awaitWrite();
+        Files.deleteIfExists(this.path);
+    }
+
+    /** Waits for checkpoint being written and stops writer thread */
+    @Override
+    public void close() throws IOException {
+        try {
+            awaitWrite();
+        } catch (Exception e) {
+            throw new IOException(e.getMessage(), e.getCause());
+        } finally {
+            this.writer.shutdownNow();
+        }
+    }
+
+    private void write(final StateOutput output) throws IOException {
+        Path temporary = this.path.resolveSibling(this.path.getFileName() + TEMPORARY_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            output.writeTo(channel);
+            channel.force(true);
+        }
+        Files.move(temporary, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
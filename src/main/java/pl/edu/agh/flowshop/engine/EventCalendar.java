@@ -0,0 +1,85 @@
+package pl.edu.agh.flowshop.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Calendar of future events used by event driven main loop, see {@link Model}.
+ * </br>
+ * Turns without events only count down jobs of machines, so main loop jumps from one event turn to next one.
+ * Every source of events (machine, order arrivals, learning turns) keeps at most one pending event and schedules
+ * next one when its event is due.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+public class EventCalendar {
+
+    /** Next order arrives */
+    public static final int ARRIVAL = 0;
+
+    /** Classifiers are trained */
+    public static final int LEARNING = 1;
+
+    /** Machine decides, finishes product or breaks */
+    public static final int MACHINE = 2;
+
+    /** Pending events, earliest first */
+    private final PriorityQueue<Event> events = new PriorityQueue<>();
+
+    /** Schedules event of given type in given turn, turns equal to {@link Integer#MAX_VALUE} are ignored */
+    public void schedule(final int turnNo, final int type, final Machine machine) {
+        if (turnNo != Integer.MAX_VALUE) {
+            this.events.add(new Event(turnNo, type, machine));
+        }
+    }
+
+    /** Removes and returns events due in given turn or earlier */
+    public List<Event> pollDue(final int turnNo) {
+        List<Event> result = new ArrayList<>();
+        while (!this.events.isEmpty() && this.events.peek().getTurnNo() <= turnNo) {
+            result.add(this.events.poll());
+        }
+        return result;
+    }
+
+    /** Returns turn of earliest pending event, {@link Integer#MAX_VALUE} if there is none */
+    public int getNextTurn() {
+        return this.events.isEmpty() ? Integer.MAX_VALUE : this.events.peek().getTurnNo();
+    }
+
+    /** Event scheduled in calendar */
+    public static class Event implements Comparable<Event> {
+
+        private final int turnNo;
+
+        private final int type;
+
+        /** Machine of {@link #MACHINE} event, null for other types */
+        private final Machine machine;
+
+        private Event(final int turnNo, final int type, final Machine machine) {
+            this.turnNo = turnNo;
+            this.type = type;
+            this.machine = machine;
+        }
+
+        public int getTurnNo() {
+            return turnNo;
+        }
+
+        public int getType() {
+            return type;
+        }
+
+        public Machine getMachine() {
+            return machine;
+        }
+
+        @Override
+        public int compareTo(final Event other) {
+            return Integer.compare(this.turnNo, other.turnNo);
+        }
+    }
+}
@@ -1,23 +1,29 @@
 package pl.edu.agh.flowshop.engine;
 
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
-import pl.edu.agh.flowshop.utils.Parameters;
+import pl.edu.agh.flowshop.utils.StateInput;
+import pl.edu.agh.flowshop.utils.StateOutput;
+import weka.core.Instance;
 
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Class representing one layer of {@link Machine machines} in model.
+ * </br>
+ * If model has decision pool, decisions of large layers are computed in parallel, see
+ * {@link #decideInParallel(ForkJoinPool, Instance)}, with the same results as sequential decisions. In pipelined
+ * mode layer decides on its own snapshot of model, see {@link LayerPipeline}.
  *
  * @author Bartosz
  *         Created on 2016-03-09.
  */
 public class Layer {
 
-    private final static Logger logger = LogManager.getLogger(Layer.class);
-
-    /** layers counter */
-    private static int count = 0;
+    /** Number of machines deciding sequentially in one parallel task, smaller layers do not decide in parallel */
+    private static final int DECISIONS_GRAIN = 16;
 
     /** layer */
     private final int id;
@@ -31,10 +37,19 @@ public class Layer {
     /** machines list */
     private List<Machine> machines;
 
-    public Layer(final List<Machine> machines) {
-        this.tasksQueue = new int[Parameters.PRODUCT_TYPES_NO];
+    /** Actions of supervised machines computed in parallel, by machine index, reused every turn */
+    private int[] decisions;
+
+    /** Number of changes of tasks queue and health of machines, so unchanged features are not built again */
+    private int version;
+
+    /** Tasks queue before machines ticked in current turn, reused every turn */
+    private int[] queueBeforeTicks;
+
+    public Layer(final int id, final List<Machine> machines, final int productTypesNo) {
+        this.tasksQueue = new int[productTypesNo];
         this.machines = machines;
-        this.id = ++count;
+        this.id = id;
     }
 
     public void setModel(final Model model) {
@@ -57,7 +72,7 @@ public class Layer {
     /** Returns summed number of products in queue */
     public int getQueueSize() {
         int result = 0;
-        for (int i = 0; i < Parameters.PRODUCT_TYPES_NO; i++) {
+        for (int i = 0; i < tasksQueue.length; i++) {
             result += tasksQueue[i];
         }
         return result;
@@ -68,35 +83,146 @@ public class Layer {
         return machines;
     }
 
+    /** Returns number of changes of tasks queue and health of machines, it changes whenever any of them does */
+    public int getVersion() {
+        return version;
+    }
+
     public int[] tick(final int[] newTasks) throws Exception {
-        logger.debug("Layer " + id + " tick!");
+        return tick(newTasks, null);
+    }
+
+    /** Ticks layer, decisions use instance of given pipeline stage instead of current state of model if it is set */
+    int[] tick(final int[] newTasks, final LayerPipeline.Stage stage) throws Exception {
         //add new tasks to queue
-        for (int i = 0; i < Parameters.PRODUCT_TYPES_NO; i++) {
-            this.tasksQueue[i] += newTasks[i];
+        boolean changed = false;
+        for (int i = 0; i < this.tasksQueue.length; i++) {
+            if (newTasks[i] != 0) {
+                this.tasksQueue[i] += newTasks[i];
+                changed = true;
+            }
+        }
+        if (changed) {
+            this.version++;
         }
 
-        //chance for changing processing product type
-        for (Machine machine : this.machines) {
-            logger.debug("Layer " + id + " decision time.");
-            machine.decideOnAction(model.prepareInstanceForDecision());
+        //chance for changing processing product type, features are built only for machines which can decide
+        PhaseTimers timers = this.model.getPhaseTimers();
+        long decisionsStart = timers.start();
+        ForkJoinPool decisionPool = this.model.getDecisionPool();
+        if (decisionPool != null && this.machines.size() >= 2 * DECISIONS_GRAIN) {
+            decideInParallel(decisionPool,
+                    stage != null ? stage.prepareInstanceForDecision() : this.model.prepareInstanceForDecision());
+        } else {
+            for (Machine machine : this.machines) {
+                if (machine.isReadyForDecision()) {
+                    machine.decideOnAction(
+                            stage != null ? stage.prepareInstanceForDecision() : model.prepareInstanceForDecision());
+                }
+            }
         }
+        timers.stop(timers.getDecisions(), decisionsStart);
 
         //tick for machines
-        int[] finishedProducts = new int[Parameters.PRODUCT_TYPES_NO];
+        long ticksStart = timers.start();
+        int[] finishedProducts = new int[this.tasksQueue.length];
+        if (this.queueBeforeTicks == null) {
+            this.queueBeforeTicks = new int[this.tasksQueue.length];
+        }
+        System.arraycopy(this.tasksQueue, 0, this.queueBeforeTicks, 0, this.tasksQueue.length);
+        changed = false;
         for (Machine machine : this.machines) {
+            boolean broken = machine.isBroken();
             int result = machine.tick(this.tasksQueue);
             if(result > -1) {
                 finishedProducts[result] += 1;
             }
+            changed |= broken != machine.isBroken();
         }
+        // taken and returned products may cancel out, then features did not change either
+        if (changed || !Arrays.equals(this.queueBeforeTicks, this.tasksQueue)) {
+            this.version++;
+        }
+        timers.stop(timers.getMachineTicks(), ticksStart);
+        return finishedProducts;
+    }
 
+    /**
+     * Computes actions of supervised machines in parallel against single snapshot of model, then applies decisions
+     * of all machines in machine order. Decisions do not change machines health nor buffers, so snapshot is what
+     * every sequential decision sees, and every machine draws from its own random stream, so results are the same as
+     * in sequential mode. Reinforcement learning machines simulate decisions of machines before them, so they decide
+     * in order while decisions are applied.
+     */
+    private void decideInParallel(final ForkJoinPool pool, final Instance snapshot) throws Exception {
+        if (this.decisions == null || this.decisions.length != this.machines.size()) {
+            this.decisions = new int[this.machines.size()];
+        }
+        pool.invoke(new DecisionTask(snapshot, 0, this.machines.size()));
 
-        StringBuilder sb = new StringBuilder("");
-        for (int product : finishedProducts) {
-            sb.append(product).append(",");
+        for (int i = 0; i < this.machines.size(); i++) {
+            Machine machine = this.machines.get(i);
+            if (machine.isReadyForDecision()) {
+                machine.applyDecision(machine.isSupervised() ? this.decisions[i] : machine.getAction(snapshot));
+            }
+        }
+    }
+
+    /** Writes tasks queue and state of machines */
+    protected void saveState(final StateOutput output) throws IOException {
+        output.putInts(this.tasksQueue);
+        for (Machine machine : this.machines) {
+            machine.saveState(output);
+        }
+    }
+
+    protected void restoreState(final StateInput input) throws IOException {
+        input.getInts(this.tasksQueue);
+        for (Machine machine : this.machines) {
+            machine.restoreState(input);
+        }
+        this.version++;
+    }
+
+    /** Computes actions of supervised machines of index range, splitting it until it is small enough */
+    private class DecisionTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /** Model snapshot, shared read only by all tasks */
+        private final Instance snapshot;
+
+        private final int from;
+
+        private final int to;
+
+        private DecisionTask(final Instance snapshot, final int from, final int to) {
+            this.snapshot = snapshot;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from > DECISIONS_GRAIN) {
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(new DecisionTask(this.snapshot, this.from, middle),
+                        new DecisionTask(this.snapshot, middle, this.to));
+                return;
+            }
+
+            for (int i = this.from; i < this.to; i++) {
+                Machine machine = machines.get(i);
+                if (!machine.isReadyForDecision() || !machine.isSupervised()) {
+                    continue;
+                }
+                try {
+                    decisions[i] = machine.getAction(this.snapshot);
+                } catch (Exception e) {
+                    throw new IllegalStateException("Decision of machine " + machine.getId() + " failed.", e);
+                }
+            }
         }
-        logger.debug("Finished products for layer " + id + ": [" + sb + "]");
-        return finishedProducts;
     }
 
 }
@@ -0,0 +1,403 @@
+package pl.edu.agh.flowshop.engine;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import pl.edu.agh.flowshop.entity.Order;
+import pl.edu.agh.flowshop.utils.AttributeSchema;
+import pl.edu.agh.flowshop.utils.SpscQueue;
+import weka.core.Instance;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs layers of model as pipeline: every layer ticks on its own thread and gets products finished by upstream layer
+ * through bounded {@link SpscQueue}, so layer k works on turn t while layer k-1 works on turn t+1. Main loop feeds
+ * first layer with arrived products and takes products finished by last one, up to twice as many turns as there are
+ * layers are in pipeline at once. Turn rate of long lines approaches one turn per tick of slowest layer.
+ * </br>
+ * Decisions can not see state of whole model at one moment, so every layer decides on its own snapshot of it:
+ * <li>
+ * <ul>upstream layers - state at end of current turn, as in sequential mode, it is passed down with products</ul>
+ * <ul>own layer - current state, as in sequential mode</ul>
+ * <ul>downstream layer n layers away - state at end of turn t-1-n instead of t-1, it is the newest state layer can
+ * wait for without stopping the pipeline</ul>
+ * </li>
+ * Decisions of layers with downstream layers differ from sequential ones, so results of pipelined runs differ from
+ * sequential runs, but they are still repeatable for given seed. Deliveries and metrics use state of all layers at end
+ * of turn, as in sequential mode.
+ * </br>
+ * Layer threads touch only their machines, which must be supervised with non updateable classifiers, reinforcement
+ * learning agents simulate whole model and updateable classifiers learn on delivery. Learning and checkpoints need
+ * all turns before them finished, so main loop empties pipeline before them, see {@link #start(int)}.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+class LayerPipeline implements Closeable {
+
+    /** Number of busy checks before waiting thread starts yielding */
+    private static final int SPINS = 64;
+
+    /** Number of yields before waiting thread starts parking */
+    private static final int YIELDS = 64;
+
+    /** Time waiting thread parks for between checks */
+    private static final long PARK_NANOS = 20000;
+
+    private final Model model;
+
+    private final AttributeSchema schema;
+
+    private final Stage[] stages;
+
+    /** Queue k feeds layer k, last one feeds main loop */
+    private final SpscQueue<Handoff>[] queues;
+
+    private final Thread[] workers;
+
+    /** Maximum number of turns in pipeline at once */
+    private final int depth;
+
+    /** Number of turns in pipeline, used by main loop only */
+    private int inFlight;
+
+    /** First turn since pipeline was last empty, older states of layers are their states at start */
+    private volatile int startTurnNo;
+
+    private volatile boolean closed;
+
+    /** First failure of layer thread */
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    LayerPipeline(final Model model) {
+        this.model = model;
+        this.schema = model.getSchema();
+        List<Layer> layers = model.getLayers();
+        this.depth = 2 * layers.size();
+        this.stages = new Stage[layers.size()];
+        this.queues = new SpscQueue[layers.size() + 1];
+        for (int layerNo = 0; layerNo < layers.size(); layerNo++) {
+            this.stages[layerNo] = new Stage(layerNo, layers.get(layerNo));
+        }
+        for (int i = 0; i < this.queues.length; i++) {
+            this.queues[i] = new SpscQueue<>(this.depth);
+        }
+
+        ThreadFactory threadFactory = new ThreadFactoryBuilder().setDaemon(true).setNameFormat("layer-%d").build();
+        this.workers = new Thread[layers.size()];
+        for (int layerNo = 0; layerNo < layers.size(); layerNo++) {
+            this.workers[layerNo] = threadFactory.newThread(this.stages[layerNo]);
+            this.workers[layerNo].start();
+        }
+    }
+
+    /**
+     * Starts pipelining turns from given one, current state of layers becomes their state at end of previous turn.
+     * Pipeline must be empty.
+     */
+    void start(final int turnNo) {
+        if (this.inFlight > 0) {
+            throw new IllegalStateException("Pipeline is not empty, " + this.inFlight + " turns are in it.");
+        }
+        this.startTurnNo = turnNo;
+        for (Stage stage : this.stages) {
+            stage.publish(turnNo - 1, null);
+        }
+    }
+
+    /** Returns true if next turn can not be submitted before some turn is taken */
+    boolean isFull() {
+        return this.inFlight == this.depth;
+    }
+
+    /**
+     * Passes turn to first layer
+     *
+     * @param order    order arrived in turn, null if none did
+     * @param products products arrived in turn
+     */
+    void submit(final int turnNo, final Order order, final int[] products) {
+        if (isFull()) {
+            throw new IllegalStateException("Pipeline is full.");
+        }
+        // pipeline never holds more turns than queue holds, so this does not wait
+        offer(this.queues[0], new Handoff(turnNo, order, products,
+                new int[this.schema.getFeaturesNo()]));
+        this.inFlight++;
+    }
+
+    /** Waits for oldest submitted turn to leave last layer and returns it */
+    Handoff take() throws Exception {
+        if (this.inFlight == 0) {
+            throw new IllegalStateException("Pipeline is empty.");
+        }
+        SpscQueue<Handoff> queue = this.queues[this.queues.length - 1];
+        Handoff handoff;
+        for (int attempt = 0; (handoff = queue.poll()) == null; attempt++) {
+            Throwable failure = this.failure.get();
+            if (failure != null) {
+                throw new Exception("Layer failed in pipelined turn.", failure);
+            }
+            idle(attempt);
+        }
+        this.inFlight--;
+        return handoff;
+    }
+
+    /** Stops layer threads and waits for them, turns still in pipeline are dropped */
+    @Override
+    public void close() {
+        this.closed = true;
+        boolean interrupted = false;
+        for (Thread worker : this.workers) {
+            LockSupport.unpark(worker);
+            while (worker.isAlive()) {
+                try {
+                    worker.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Puts handoff into queue, waiting for space if it is full */
+    private void offer(final SpscQueue<Handoff> queue, final Handoff handoff) {
+        for (int attempt = 0; !queue.offer(handoff); attempt++) {
+            checkRunning();
+            idle(attempt);
+        }
+    }
+
+    /** Throws if pipeline was closed or another layer failed, so waiting layer thread gives up */
+    private void checkRunning() {
+        if (this.closed || this.failure.get() != null) {
+            throw new CancellationException("Pipeline stopped.");
+        }
+    }
+
+    /** Backs off before next check of waiting thread, spinning first, then yielding, then parking */
+    private static void idle(final int attempt) {
+        if (attempt < SPINS) {
+            return;
+        }
+        if (attempt < SPINS + YIELDS) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    }
+
+    /** Turn passed down pipeline, carries products and features of layers it already left */
+    static final class Handoff {
+
+        final int turnNo;
+
+        /** Order arrived in turn, added to order book when turn leaves pipeline */
+        final Order order;
+
+        /** Products entering next layer, finished products of whole line when turn leaves pipeline */
+        int[] products;
+
+        /** Raw features values, in slots of schema, of layers turn left, at end of turn */
+        final int[] features;
+
+        private Handoff(final int turnNo, final Order order, final int[] products, final int[] features) {
+            this.turnNo = turnNo;
+            this.order = order;
+            this.products = products;
+            this.features = features;
+        }
+    }
+
+    /** Thread of one layer, it ticks turns in order and publishes state of layer at end of each one */
+    final class Stage implements Runnable {
+
+        private final int layerNo;
+
+        private final Layer layer;
+
+        /** Slots of features of this layer: health of machines, then buffers */
+        private final int[] slots;
+
+        /**
+         * Features values of layer at end of last turns, by turn modulo ring size. Layer n layers upstream reads turn
+         * n older than the newest one this layer can publish meanwhile, so ring holds one turn more than there are
+         * layers.
+         */
+        private final int[][] published;
+
+        /** Turns which states are in {@link #published}, by slot, turn is unset while its slot is written */
+        private final AtomicIntegerArray publishedTurns;
+
+        /** Newest turn which state is published */
+        private volatile int publishedTurnNo = Integer.MIN_VALUE;
+
+        /** Values backing {@link #decisionInstance} */
+        private final double[] decisionValues;
+
+        /** Decision instance of this layer, filled once per turn */
+        private final Instance decisionInstance;
+
+        /** Turn being ticked */
+        private Handoff current;
+
+        /** True if decision instance is filled for current turn */
+        private boolean prepared;
+
+        private Stage(final int layerNo, final Layer layer) {
+            this.layerNo = layerNo;
+            this.layer = layer;
+            int machinesNo = layer.getMachines().size();
+            int productTypesNo = model.getParameters().getProductTypesNo();
+            this.slots = new int[machinesNo + productTypesNo];
+            for (int machineNo = 0; machineNo < machinesNo; machineNo++) {
+                this.slots[machineNo] = schema.getHealthSlot(layerNo, machineNo);
+            }
+            for (int i = 0; i < productTypesNo; i++) {
+                this.slots[machinesNo + i] = schema.getBufferSlot(layerNo, i);
+            }
+            this.published = new int[stages.length + 1][this.slots.length];
+            this.publishedTurns = new AtomicIntegerArray(this.published.length);
+            for (int i = 0; i < this.published.length; i++) {
+                this.publishedTurns.set(i, Integer.MIN_VALUE);
+            }
+
+            this.decisionValues = new double[model.getAttributesNo()];
+            this.decisionInstance = new Instance(1.0, this.decisionValues);
+            this.decisionInstance.setDataset(model.getDecisionHeader());
+        }
+
+        @Override
+        public void run() {
+            SpscQueue<Handoff> input = queues[this.layerNo];
+            SpscQueue<Handoff> output = queues[this.layerNo + 1];
+            try {
+                while (true) {
+                    Handoff handoff;
+                    for (int attempt = 0; (handoff = input.poll()) == null; attempt++) {
+                        if (closed) {
+                            return;
+                        }
+                        idle(attempt);
+                    }
+
+                    this.current = handoff;
+                    this.prepared = false;
+                    int[] finishedProducts = this.layer.tick(handoff.products, this);
+                    for (int finished : finishedProducts) {
+                        if (finished < 0) {
+                            throw new IllegalStateException("Negative finished products number.");
+                        }
+                    }
+                    handoff.products = finishedProducts;
+                    publish(handoff.turnNo, handoff.features);
+                    this.current = null;
+                    offer(output, handoff);
+                }
+            } catch (Throwable e) {
+                if (!closed) {
+                    failure.compareAndSet(null, e);
+                }
+            }
+        }
+
+        /**
+         * Returns instance for decisions of machines of this layer in current turn, built once per turn as decisions
+         * do not change health nor buffers. Waits for downstream layers to publish state decision needs.
+         */
+        Instance prepareInstanceForDecision() {
+            if (this.prepared) {
+                return this.decisionInstance;
+            }
+            double[] values = this.decisionValues;
+            int turnNo = this.current.turnNo;
+            int[] upstream = this.current.features;
+            for (int layerNo = 0; layerNo < this.layerNo; layerNo++) {
+                for (int slot : stages[layerNo].slots) {
+                    values[slot] = Math.max(upstream[slot], 0);
+                }
+            }
+
+            List<Machine> machines = this.layer.getMachines();
+            for (int machineNo = 0; machineNo < machines.size(); machineNo++) {
+                values[this.slots[machineNo]] = schema.getHealthValue(machines.get(machineNo).isBroken());
+            }
+            for (int i = machines.size(); i < this.slots.length; i++) {
+                values[this.slots[i]] = Math.max(this.layer.getQuantityInBuffer(i - machines.size()), 0);
+            }
+
+            for (int layerNo = this.layerNo + 1; layerNo < stages.length; layerNo++) {
+                stages[layerNo].readPublished(Math.max(turnNo - 1 - (layerNo - this.layerNo), startTurnNo - 1),
+                        values);
+            }
+            values[values.length - 1] = Instance.missingValue();
+            this.prepared = true;
+            return this.decisionInstance;
+        }
+
+        /**
+         * Publishes current state of layer as state at end of given turn, also writing it into given features if
+         * they are not null
+         */
+        private void publish(final int turnNo, final int[] features) {
+            int index = slotOf(turnNo);
+            this.publishedTurns.set(index, Integer.MIN_VALUE);
+            int[] state = this.published[index];
+            List<Machine> machines = this.layer.getMachines();
+            for (int machineNo = 0; machineNo < machines.size(); machineNo++) {
+                state[machineNo] = schema.getHealthValue(machines.get(machineNo).isBroken());
+            }
+            for (int i = machines.size(); i < this.slots.length; i++) {
+                state[i] = this.layer.getQuantityInBuffer(i - machines.size());
+            }
+            if (features != null) {
+                for (int i = 0; i < this.slots.length; i++) {
+                    features[this.slots[i]] = state[i];
+                }
+            }
+            this.publishedTurns.set(index, turnNo);
+            this.publishedTurnNo = turnNo;
+        }
+
+        /**
+         * Waits until state at end of given turn is published and copies it into given decision values. Throws if
+         * slot of turn does not hold it before or after copying, so decision never sees state of another turn.
+         */
+        private void readPublished(final int turnNo, final double[] values) {
+            for (int attempt = 0; this.publishedTurnNo < turnNo; attempt++) {
+                checkRunning();
+                idle(attempt);
+            }
+            int index = slotOf(turnNo);
+            checkPublished(index, turnNo);
+            int[] state = this.published[index];
+            for (int i = 0; i < this.slots.length; i++) {
+                values[this.slots[i]] = Math.max(state[i], 0);
+            }
+            checkPublished(index, turnNo);
+        }
+
+        private void checkPublished(final int index, final int turnNo) {
+            int slotTurnNo = this.publishedTurns.get(index);
+            if (slotTurnNo != turnNo) {
+                throw new IllegalStateException("State of layer " + this.layerNo + " at end of turn " + turnNo
+                        + " is not published anymore, slot holds turn " + slotTurnNo + ".");
+            }
+        }
+
+        private int slotOf(final int turnNo) {
+            // turns before first one are negative
+            return (turnNo % this.published.length + this.published.length) % this.published.length;
+        }
+    }
+}
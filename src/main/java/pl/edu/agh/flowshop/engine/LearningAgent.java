@@ -1,27 +1,45 @@
 package pl.edu.agh.flowshop.engine;
 
 import agents.AbstractAgent;
-import algorithms.IStrategy;
+import algorithms.AbstractMemorySelector;
+import algorithms.ISelector;
 import algorithms.PengSelector;
 import algorithms.QLearningSelector;
 import algorithms.WatkinsSelector;
 import environment.ActionList;
+import environment.IAction;
 import environment.IState;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import pl.edu.agh.flowshop.entity.Action;
 import pl.edu.agh.flowshop.entity.AgentState;
-import pl.edu.agh.flowshop.utils.Attributes;
+import pl.edu.agh.flowshop.utils.LatencyHistogram;
 import pl.edu.agh.flowshop.utils.Parameters;
+import pl.edu.agh.flowshop.utils.RandomStreams;
+import pl.edu.agh.flowshop.utils.StateInput;
+import pl.edu.agh.flowshop.utils.StateOutput;
+import pl.edu.agh.flowshop.utils.StreamRandom;
 import weka.classifiers.Classifier;
+import weka.classifiers.UpdateableClassifier;
 import weka.classifiers.bayes.BayesNet;
 import weka.classifiers.bayes.NaiveBayes;
+import weka.classifiers.bayes.NaiveBayesUpdateable;
+import weka.classifiers.lazy.IBk;
+import weka.classifiers.lazy.KStar;
 import weka.classifiers.rules.JRip;
 import weka.classifiers.trees.J48;
 import weka.core.Instance;
 import weka.core.Instances;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * Abstract class containing everything what learning agent will need.
@@ -31,20 +49,64 @@ import java.util.Random;
  */
 public abstract class LearningAgent extends AbstractAgent {
 
-    /** Agents counter */
-    private static int counter = 0;
+    private final static Logger logger = LogManager.getLogger(LearningAgent.class);
 
-    /** Agent id */
-    private final int id;
+    /** Name of private random generator field in piqle {@link AbstractMemorySelector} */
+    private static final String SELECTOR_GENERATOR_FIELD = "generator";
+
+    /** Name of Q-values store field in piqle {@link AbstractMemorySelector} */
+    private static final String SELECTOR_MEMORY_FIELD = "memory";
+
+    /** Agent id, unique within model. Read from configuration or assigned by {@link pl.edu.agh.flowshop.utils.ConfigReader} */
+    private int id = -1;
 
     /** Classifier name */
     protected String classifierName = "";
 
-    /** Train set used to teach {@link #classifier} */
-    protected Instances trainSet;
+    /** Retention policy name, see {@link RetentionPolicy} */
+    protected String retention = RetentionPolicy.UNBOUNDED;
+
+    /** Maximal number of examples kept by {@link #retention} policy */
+    protected int retentionSize;
+
+    /** Weight decay used by {@link RetentionPolicy#DECAY} policy */
+    protected double retentionDecay;
+
+    /** File of policy agent starts from, see {@link Policy}, null to start from scratch */
+    protected String policyFile;
+
+    /** Examples used to teach {@link #classifier}, kept according to {@link #retention} policy */
+    private transient RetentionPolicy trainSet;
+
+    /** Optional filter of examples this agent learns from, null if agent learns from all examples */
+    private transient TrainingFilter trainingFilter;
+
+    /** Classifier used for decisions, replaced atomically when background training finishes */
+    private volatile Classifier classifier;
+
+    /** True if {@link #classifier} was already built */
+    private boolean trained;
+
+    /** True if {@link #classifier} learns online from every example instead of being rebuilt in learning turns */
+    private boolean updateable;
+
+    /** Training running in background, null if there is none */
+    private transient Future<?> pendingTraining;
+
+    /** Timers of model this agent belongs to */
+    private transient PhaseTimers phaseTimers;
+
+    /** Histogram of decision times of {@link #classifierName} */
+    private transient LatencyHistogram actionHistogram;
+
+    /** Model agent works in */
+    private transient Model model;
+
+    /** Random stream used for exploration, shared with reinforcement learning selector */
+    private transient StreamRandom random;
 
-    /** Classifier used for machine to learn */
-    private Classifier classifier;
+    /** Q-values of reinforcement learning selector, null if agent is supervised or selector keeps its own store */
+    private transient QTable qTable;
 
     /** Is classifier already initialized */
     private boolean initialized;
@@ -54,96 +116,382 @@ public abstract class LearningAgent extends AbstractAgent {
 
     public LearningAgent() {
         super(null, null);
-        this.id = counter++;
     }
 
     public int getId() {
         return this.id;
     }
 
+    public void setId(final int id) {
+        this.id = id;
+    }
+
+    public void setTrainingFilter(final TrainingFilter trainingFilter) {
+        this.trainingFilter = trainingFilter;
+    }
+
+    protected Model getModel() {
+        return this.model;
+    }
+
+    public String getClassifierName() {
+        return classifierName;
+    }
+
+    public void setClassifierName(final String classifierName) {
+        this.classifierName = classifierName;
+    }
+
+    public String getPolicyFile() {
+        return policyFile;
+    }
+
+    /** Sets file of policy agent starts from, must be set before {@link #init(Model)} */
+    public void setPolicyFile(final String policyFile) {
+        this.policyFile = policyFile;
+    }
+
     @Override
     protected ActionList getActionList() {
         ActionList result = new ActionList(getCurrentState());
-        for (int productNo = 0; productNo < Parameters.PRODUCT_TYPES_NO; productNo++) {
+        for (int productNo = 0; productNo < this.model.getParameters().getProductTypesNo(); productNo++) {
             result.add(new Action(id, productNo));
         }
 
         return result;
     }
 
-    /** Fires learning process for this machine */
+    /**
+     * Fires learning process for this machine. If model has training executor, new classifier is built in background
+     * on snapshot of {@link #trainSet} and swapped in when ready, meanwhile decisions use current one. First classifier
+     * is always built synchronously, so there is one to decide with since first turn.
+     */
     protected void train() throws Exception {
-        if(supervised) {
-            if (this.trainSet == null) {
-                this.trainSet = new Instances("TrainSet", Attributes.attributes, 0);
-                this.trainSet.setClassIndex(this.trainSet.numAttributes() - 1);
+        if(supervised && !updateable) {
+            ExecutorService executor = this.model.getTrainingExecutor();
+            if (executor == null || !this.trained) {
+                awaitTraining();
+                // built classifier is never modified, so checkpoints can keep it by reference
+                Classifier next = createClassifier();
+                next.buildClassifier(this.trainSet.toInstances(this.model.getAttributes()));
+                this.classifier = next;
+                this.trained = true;
+                return;
             }
-            this.classifier.buildClassifier(this.trainSet);
+
+            if (this.pendingTraining != null) {
+                if (!this.pendingTraining.isDone()) {
+                    logger.debug("Agent " + this.id + " still training, learning turn skipped.");
+                    return;
+                }
+                awaitTraining();
+            }
+
+            final Instances snapshot = this.trainSet.toInstances(this.model.getAttributes());
+            final Classifier next = createClassifier();
+            this.pendingTraining = executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    next.buildClassifier(snapshot);
+                    classifier = next;
+                    return null;
+                }
+            });
         }
     }
 
-    /** Adds sample to {@link #trainSet} dataset of this agent and all underlying. */
-    protected void addTrainData(final Instance instance) {
-        if(supervised) {
-            if (this.trainSet == null) {
-                this.trainSet = new Instances("TrainSet", Attributes.attributes, 0);
-                this.trainSet.setClassIndex(this.trainSet.numAttributes() - 1);
+    /** Returns true if agent decides with classifier, false if it uses reinforcement learning */
+    public boolean isSupervised() {
+        return this.supervised;
+    }
+
+    /** Returns true if agent classifier learns from every example as soon as it is added */
+    public boolean isUpdateable() {
+        return this.updateable;
+    }
+
+    /** Returns number of examples currently kept for training */
+    public int getTrainSetSize() {
+        return this.trainSet.size();
+    }
+
+    /** Returns number of examples evicted from train set so far */
+    public long getEvictedExamplesNo() {
+        return this.trainSet.getEvictedNo();
+    }
+
+    /** Waits for background training of this agent to finish, rethrows its failure */
+    protected void awaitTraining() throws Exception {
+        if (this.pendingTraining == null) {
+            return;
+        }
+
+        try {
+            this.pendingTraining.get();
+        } catch (ExecutionException e) {
+            throw new Exception("Training of agent " + this.id + " failed.", e.getCause());
+        } finally {
+            this.pendingTraining = null;
+        }
+    }
+
+    /**
+     * Adds sample from given row of model {@link TrainingStore} to {@link #trainSet} of this agent, evicting samples
+     * according to retention policy. Updateable classifiers learn from sample right away and do not keep train set.
+     * Samples rejected by {@link #trainingFilter} are ignored.
+     */
+    protected void addTrainData(final int row) throws Exception {
+        if (!supervised) {
+            return;
+        }
+
+        TrainingStore store = this.model.getTrainingStore();
+        if (this.trainingFilter != null && !this.trainingFilter.accept(this, store.get(row))) {
+            return;
+        }
+
+        if (updateable) {
+            ((UpdateableClassifier) this.classifier).updateClassifier(store.get(row));
+        } else {
+            this.trainSet.add(row);
+        }
+    }
+
+    /**
+     * Returns policy learned so far, waiting for background training. Supervised policy holds current classifier,
+     * null if it was not built yet, and examples kept for training.
+     */
+    public Policy getPolicy() throws Exception {
+        awaitTraining();
+        if (!this.supervised) {
+            if (this.qTable == null) {
+                throw new IllegalStateException("Agent " + this.id + " keeps Q-values in store of selector.");
+            }
+            return new Policy(this.classifierName, this.model.getSchema(), this.qTable.copy());
+        }
+
+        Instance[] examples = new Instance[0];
+        if (!this.updateable) {
+            Instances trainSet = this.trainSet.toInstances(this.model.getAttributes());
+            examples = new Instance[trainSet.numInstances()];
+            for (int i = 0; i < examples.length; i++) {
+                examples[i] = trainSet.instance(i);
+            }
+        }
+        return new Policy(this.classifierName, this.model.getSchema(), this.trained ? this.classifier : null,
+                examples);
+    }
+
+    /**
+     * Starts initialized agent from given policy instead of from scratch. Policy examples are added to train set, so
+     * classifiers rebuilt in learning turns keep what policy learned.
+     *
+     * @throws IllegalArgumentException if policy was learned by other classifier or with other attributes
+     */
+    public void usePolicy(final Policy policy) throws Exception {
+        policy.checkCompatible(this.classifierName, this.model.getSchema());
+        if (!this.supervised) {
+            if (!useQTable((AbstractMemorySelector) getAlgorithm(), policy.getQTable().copy())) {
+                throw new IllegalStateException("Could not use Q-values of policy for agent " + this.id);
             }
+            return;
+        }
 
-            this.trainSet.add(instance);
+        TrainingStore store = this.model.getTrainingStore();
+        for (Instance example : policy.getExamples()) {
+            // weights given by retention policy of exporting agent are not kept
+            Instance copy = (Instance) example.copy();
+            copy.setWeight(1);
+            int row = store.append(copy);
+            this.trainSet.add(row);
+            store.release(row);
+        }
+        if (policy.getClassifier() != null) {
+            // updateable classifier keeps learning, so it must not be shared with policy
+            this.classifier = this.updateable ? Classifier.makeCopy(policy.getClassifier()) : policy.getClassifier();
+            this.trained = true;
         }
     }
 
-    /** Return number of product which should be worked on */
+    /**
+     * Return number of product which should be worked on. Decisions of supervised agents change only state of agent,
+     * so different agents may decide in parallel on the same instance.
+     */
     protected int getAction(final Instance instance) throws Exception {
-        Instances data = new Instances("Decide", Attributes.attributes, 0);
-        data.setClassIndex(data.numAttributes() - 1);
-        instance.setDataset(data);
+        if (instance.dataset() == null) {
+            instance.setDataset(this.model.getDecisionHeader());
+        }
 
+        long start = this.phaseTimers.start();
+        int result;
         //if classifier != null we use weka for decisions
         if(supervised) {
             double[] probabilities = this.classifier.distributionForInstance(instance);
-            return chooseActionFromProbabilities(probabilities);
+            result = chooseActionFromProbabilities(probabilities);
         } else {
             Action action = (Action) act();
-            return action.getProductToProcess();
+            result = action.getProductToProcess();
+        }
+        this.phaseTimers.stop(this.actionHistogram, start);
+
+        TrajectoryRecorder trajectory = this.model.getTrajectoryRecorder();
+        if (!supervised && trajectory.isEnabled()) {
+            trajectory.recordStep(this.id, ((AgentState) this.oldState).getAttrValues(), result, this.reward,
+                    ((AgentState) this.currentState).getAttrValues());
+        }
+        return result;
+    }
+
+    /**
+     * Learns policy from recorded trajectory instead of from run, see {@link OfflineTrainer}. Supervised agent keeps
+     * examples accepted by its training filter according to its retention policy and builds classifier from them,
+     * its own train set is not used. Reinforcement learning agent replays its steps through its selector.
+     * Agents of different machines may learn in parallel, given examples must not be modified.
+     *
+     * @param examples training examples with decision header of model as dataset, oldest first
+     * @param steps    steps of this agent, oldest first
+     */
+    protected Policy learnOffline(final Instances examples, final List<OfflineTrainer.Step> steps) throws Exception {
+        if (!this.supervised) {
+            ISelector selector = (ISelector) getAlgorithm();
+            for (OfflineTrainer.Step step : steps) {
+                selector.learn(new AgentState(this.model, step.state, this.id),
+                        new AgentState(this.model, step.nextState, this.id), new Action(this.id, step.action),
+                        step.reward);
+            }
+            return getPolicy();
+        }
+
+        // private store and retention policy, so machines do not share mutable state
+        TrainingStore store = new TrainingStore(this.model.getDecisionHeader());
+        RetentionPolicy trainSet = RetentionPolicy.create(this.retention, this.retentionSize, this.retentionDecay,
+                this.model.getRandomStreams().stream(RandomStreams.RETENTION, this.id), store);
+        Classifier classifier = createClassifier();
+        if (this.updateable) {
+            classifier.buildClassifier(new Instances(this.model.getDecisionHeader(), 0));
+        }
+        for (int i = 0; i < examples.numInstances(); i++) {
+            Instance example = examples.instance(i);
+            if (this.trainingFilter != null && !this.trainingFilter.accept(this, example)) {
+                continue;
+            }
+            if (this.updateable) {
+                ((UpdateableClassifier) classifier).updateClassifier(example);
+            } else {
+                int row = store.append(example);
+                trainSet.add(row);
+                store.release(row);
+            }
+        }
+
+        Instances kept = trainSet.toInstances(this.model.getAttributes());
+        Instance[] keptExamples = new Instance[kept.numInstances()];
+        for (int i = 0; i < keptExamples.length; i++) {
+            keptExamples[i] = kept.instance(i);
+        }
+        if (!this.updateable) {
+            if (kept.numInstances() == 0) {
+                return new Policy(this.classifierName, this.model.getSchema(), null, keptExamples);
+            }
+            classifier.buildClassifier(kept);
+        }
+        return new Policy(this.classifierName, this.model.getSchema(), classifier, keptExamples);
+    }
+
+    /**
+     * Writes state of agent for checkpoint. Classifiers and reinforcement learning selector are copied, except for
+     * Q-values which are copied with single array copy. Built classifiers are copied too, as some of them, like
+     * BayesNet, modify their filters while classifying. Background training must be finished.
+     */
+    protected void saveState(final StateOutput output) throws IOException {
+        if (this.pendingTraining != null) {
+            throw new IllegalStateException("Agent " + this.id + " is still training.");
+        }
+        output.putString(this.classifierName);
+        output.putRandom(this.random);
+        output.putBoolean(this.trained);
+        this.trainSet.saveState(output);
+        if (this.supervised) {
+            output.putCopy(this.updateable || this.trained ? this.classifier : null);
+        } else {
+            QTable table = this.qTable;
+            output.putObject(table != null ? table.copy() : null);
+            // states refer to model and selector to exploration stream, they are restored in place
+            output.putCopy(new Object[]{getAlgorithm(), this.currentState, this.oldState, this.lastAction,
+                    this.reward, this.learningEnabled}, this.model, this.random, table);
+        }
+    }
+
+    /** Restores state written by {@link #saveState(StateOutput)} into agent initialized for the same model */
+    protected void restoreState(final StateInput input) throws IOException {
+        String classifierName = input.getString();
+        if (!classifierName.equals(this.classifierName)) {
+            throw new IOException("Checkpoint of agent " + this.id + " uses " + classifierName + " instead of "
+                    + this.classifierName);
+        }
+        input.getRandom(this.random);
+        this.trained = input.getBoolean();
+        this.trainSet.restoreState(input);
+        if (this.supervised) {
+            Object classifier = input.getCopy();
+            if (classifier != null) {
+                this.classifier = (Classifier) classifier;
+            }
+        } else {
+            QTable table = (QTable) input.getObject();
+            Object[] state = (Object[]) input.getCopy(this.model, this.random, table);
+            setAlgorithm((ISelector) state[0]);
+            this.qTable = table;
+            this.currentState = (IState) state[1];
+            this.oldState = (IState) state[2];
+            this.lastAction = (IAction) state[3];
+            this.reward = (Double) state[4];
+            this.learningEnabled = (Boolean) state[5];
         }
     }
 
     /** Assigns classifier based on its name from config */
     public void init(final Model model) {
+        this.model = model;
+        this.random = model.getRandomStreams().stream(RandomStreams.EXPLORATION, this.id);
+        this.phaseTimers = model.getPhaseTimers();
+        this.actionHistogram = this.phaseTimers.getActionHistogram(this.classifierName);
+        Parameters parameters = model.getParameters();
+        this.trainSet = RetentionPolicy.create(this.retention, this.retentionSize, this.retentionDecay,
+                model.getRandomStreams().stream(RandomStreams.RETENTION, this.id), model.getTrainingStore());
         switch (this.classifierName) {
-            case "J48":
-                this.classifier = new J48();
-                break;
-            case "JRip":
-                this.classifier = new JRip();
-                break;
-            case "BayesNet":
-                this.classifier = new BayesNet();
-                break;
-            case "NaiveBayes":
-                this.classifier = new NaiveBayes();
-                break;
             case "QLearning":
                 this.setAlgorithm(new QLearningSelector());
                 break;
             case "Watkins":
-                this.setAlgorithm(new WatkinsSelector(Parameters.LAMBDA));
+                this.setAlgorithm(new WatkinsSelector(parameters.getLambda()));
                 break;
             case "Peng":
-                this.setAlgorithm(new PengSelector(Parameters.LAMBDA));
+                this.setAlgorithm(new PengSelector(parameters.getLambda()));
                 break;
             default:
-                this.classifier = new J48();
+                this.classifier = createClassifier();
                 break;
         }
 
+        // updateable classifiers are built once on empty dataset and then learn online
+        if (this.classifier instanceof UpdateableClassifier) {
+            try {
+                this.classifier.buildClassifier(new Instances(model.getDecisionHeader(), 0));
+            } catch (Exception e) {
+                throw new IllegalStateException("Could not initialize classifier " + this.classifierName, e);
+            }
+            this.updateable = true;
+            this.trained = true;
+        }
+
         // initialization of reinforcement learning params
         if(getAlgorithm() != null) {
             QLearningSelector strategy = (QLearningSelector) getAlgorithm();
-            strategy.setEpsilon(Parameters.EPSILON);
-            strategy.setGamma(Parameters.GAMMA);
+            strategy.setEpsilon(parameters.getEpsilon());
+            strategy.setGamma(parameters.getGamma());
+            useRandomStream(strategy);
+            useQTable(strategy, new QTable(model.getAttributesNo() - 1, parameters.getProductTypesNo()));
             this.supervised = false;
 
             setUniverse(model);
@@ -151,30 +499,88 @@ public abstract class LearningAgent extends AbstractAgent {
         }
 
         this.initialized = true;
+
+        if (this.policyFile != null) {
+            try {
+                usePolicy(Policy.read(Paths.get(this.policyFile)));
+            } catch (Exception e) {
+                throw new IllegalStateException("Could not use policy " + this.policyFile + " for agent " + this.id, e);
+            }
+        }
+    }
+
+    /** Creates new, not built classifier based on its name from config */
+    private Classifier createClassifier() {
+        switch (this.classifierName) {
+            case "J48":
+                return new J48();
+            case "JRip":
+                return new JRip();
+            case "BayesNet":
+                return new BayesNet();
+            case "NaiveBayes":
+                return new NaiveBayes();
+            case "NaiveBayesUpdateable":
+                return new NaiveBayesUpdateable();
+            case "IBk":
+                return new IBk();
+            case "KStar":
+                return new KStar();
+            default:
+                return new J48();
+        }
     }
 
     private IState getInitState(final Model model) {
-        AgentState state = new AgentState(model);
-        List<Integer> attrs = new ArrayList<>();
-        for(int i=0; i<Attributes.size(); i++) {
-            attrs.add(0);
+        return new AgentState(model, model.getInitialFeatures(), this.id);
+    }
+
+    /**
+     * Replaces generator hidden inside piqle selector with this agent's exploration stream, so reinforcement learning
+     * runs are reproducible too. Selector keeps its own generator if it can not be replaced.
+     */
+    private void useRandomStream(final AbstractMemorySelector selector) {
+        try {
+            Field generator = AbstractMemorySelector.class.getDeclaredField(SELECTOR_GENERATOR_FIELD);
+            generator.setAccessible(true);
+            generator.set(selector, this.random);
+        } catch (NoSuchFieldException | IllegalAccessException | RuntimeException e) {
+            logger.warn("Could not replace random generator of selector for agent " + this.id, e);
+        }
+    }
+
+    /**
+     * Replaces Q-values store of piqle selector with given {@link QTable}. Selector keeps its own store if it can not
+     * be replaced.
+     *
+     * @return true if store was replaced
+     */
+    private boolean useQTable(final AbstractMemorySelector selector, final QTable table) {
+        try {
+            Field memory = AbstractMemorySelector.class.getDeclaredField(SELECTOR_MEMORY_FIELD);
+            memory.setAccessible(true);
+            memory.set(selector, table);
+            this.qTable = table;
+            return true;
+        } catch (NoSuchFieldException | IllegalAccessException | RuntimeException e) {
+            logger.warn("Could not replace Q-values store of selector for agent " + this.id, e);
+            return false;
         }
-        state.setAttrValues(attrs);
-        return state;
     }
 
     /** Chooses action based on their probabilities */
     private int chooseActionFromProbabilities(final double[] probabilities) {
-        Random random = new Random();
+        Random random = this.random;
+        int productTypesNo = this.model.getParameters().getProductTypesNo();
 
         // exploration
-        if (random.nextInt(100) < 5 || probabilities.length != Parameters.PRODUCT_TYPES_NO) {
-            return random.nextInt(Parameters.PRODUCT_TYPES_NO);
+        if (random.nextInt(100) < 5 || probabilities.length != productTypesNo) {
+            return random.nextInt(productTypesNo);
         }
 
         int result = 0;
         double highest = probabilities[0];
-        for (int i = 1; i < Parameters.PRODUCT_TYPES_NO; i++) {
+        for (int i = 1; i < productTypesNo; i++) {
             if (probabilities[i] > highest) {
                 result = i;
                 highest = probabilities[i];
@@ -1,12 +1,14 @@
 package pl.edu.agh.flowshop.engine;
 
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
+import pl.edu.agh.flowshop.utils.RandomStreams;
+import pl.edu.agh.flowshop.utils.StateInput;
+import pl.edu.agh.flowshop.utils.StateOutput;
+import pl.edu.agh.flowshop.utils.StreamRandom;
 import weka.core.Instance;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Random;
 
 /**
  * Machine processing tasks
@@ -16,8 +18,6 @@ import java.util.Random;
  */
 public class Machine extends LearningAgent {
 
-    private final static Logger logger = LogManager.getLogger(Machine.class);
-
     /** Type of processed product */
     private int productType = -1;
 
@@ -37,10 +37,42 @@ public class Machine extends LearningAgent {
     @SuppressWarnings("MismatchedQueryAndUpdateOfCollection")
     private Map<Integer, Integer> timeTable = new HashMap<>();
 
+    /** Random stream deciding about breakdowns */
+    private transient StreamRandom breakdownRandom;
+
+    /**
+     * Number of next busy turns already drawn from {@link #breakdownRandom} without breakdown. Draws are made ahead
+     * in event driven mode, to know turn of next breakdown, and consumed in same order as they would be drawn.
+     */
+    private int safeTurnsDrawn;
+
+    /** True if draw following {@link #safeTurnsDrawn} ones was already made and it breaks machine */
+    private boolean breakdownDrawn;
+
     public Machine() {
         super();
     }
 
+    /**
+     * Creates machine without configuration file
+     *
+     * @param id             machine id, negative to get one assigned by {@link pl.edu.agh.flowshop.utils.ConfigReader}
+     * @param timeTable      processing time of every product type
+     * @param classifierName classifier used by machine
+     */
+    public Machine(final int id, final Map<Integer, Integer> timeTable, final String classifierName) {
+        super();
+        setId(id);
+        setClassifierName(classifierName);
+        this.timeTable = new HashMap<>(timeTable);
+    }
+
+    @Override
+    public void init(final Model model) {
+        super.init(model);
+        this.breakdownRandom = model.getRandomStreams().stream(RandomStreams.BREAKDOWNS, getId());
+    }
+
     public boolean isBroken() {
         return this.broken;
     }
@@ -49,6 +81,11 @@ public class Machine extends LearningAgent {
         return this.turnsLeft > 0 && !this.broken;
     }
 
+    /** Returns true if machine is free to choose product, changing production type while working is forbidden */
+    public boolean isReadyForDecision() {
+        return this.turnsLeft <= 0;
+    }
+
     /** Returns product machine is going to finish in next turn. -1 if it won't finish anyting */
     public int getProductToBeProcessed() {
         if (this.turnsLeft <= 1 && this.productType > -1) {
@@ -59,13 +96,15 @@ public class Machine extends LearningAgent {
 
     /** Simulates one turn for agent */
     protected int tick(final int[] newTasks) throws Exception {
-        logger.debug("Machine " + getId() + " tick!");
+        TraceRecorder trace = getModel().getTraceRecorder();
         if (shouldMachineBreak()) {
-            logger.debug("Machine " + getId() + " broken!");
             //return processed product to queue
+            int returnedProduct = -1;
             if(this.productType != 0) {
                 newTasks[this.productType] += 1;
+                returnedProduct = this.productType;
             }
+            trace.record(TraceRecorder.BREAKDOWN, getId(), returnedProduct, 0);
             this.productType = -1;
             this.turnsLeft = 1;
             return -1;
@@ -74,16 +113,16 @@ public class Machine extends LearningAgent {
         //take task from queue
         if(this.productType > -1) {
             if (this.turnsLeft <= 0 && newTasks[this.productType] > 0) {
-                logger.debug("Machine " + getId() + " takes task from queue!");
                 newTasks[this.productType] -= 1;
                 this.turnsLeft = this.timeTable.get(this.productType);
+                trace.record(TraceRecorder.TASK_TAKEN, getId(), this.productType, this.turnsLeft);
             }
 
             this.turnsLeft--;
 
             //finished product is moved to finishedProduct field
             if (this.turnsLeft <= 0) {
-                logger.debug("Machine " + getId() + " finishes product " + this.productType);
+                trace.record(TraceRecorder.COMPLETION, getId(), this.productType, 0);
                 return this.productType;
             }
         }
@@ -99,32 +138,112 @@ public class Machine extends LearningAgent {
      */
     protected void decideOnAction(final Instance instance) throws Exception {
         //changing production type while working is forbidden
-        if (this.turnsLeft > 0) {
-            logger.debug("Machine " + getId() + " still working!");
+        if (!isReadyForDecision()) {
             return;
         }
 
-        int actionToChoose = getAction(instance);
+        applyDecision(getAction(instance));
+    }
+
+    /**
+     * Switches machine to product chosen by {@link #getAction(Instance)}, used when decision was computed separately,
+     * see {@link Layer}. Machine must be ready for decision.
+     */
+    protected void applyDecision(final int actionToChoose) {
+        getModel().getTraceRecorder().record(TraceRecorder.DECISION, getId(), actionToChoose, this.productType);
 
         // zmienilismy typ -> czekamy ture
         if (actionToChoose != this.productType) {
-            logger.debug("Machine " + getId() + " changed to " + actionToChoose);
             this.turnsLeft++;
-        } else {
-            logger.debug("Machine " + getId() + " producing same product.");
         }
 
         this.productType = actionToChoose;
     }
 
+    /**
+     * Returns turn of next event of this machine after given turn: decision, finished product or breakdown.
+     * Between turn after given one and returned one machine only counts down its job, so these turns can be skipped
+     * with {@link #skipTurns(int)}.
+     *
+     * @return turn of next event, {@link Integer#MAX_VALUE} if machine will not change anymore
+     */
+    protected int getNextEventTurn(final int turnNo) {
+        if (isReadyForDecision()) {
+            return turnNo + 1;
+        }
+        if (!isBusy()) {
+            return Integer.MAX_VALUE;
+        }
+
+        // every busy turn draws breakdown, including one in which product is finished
+        while (!this.breakdownDrawn && this.safeTurnsDrawn < this.turnsLeft) {
+            if (drawBreakdown()) {
+                this.breakdownDrawn = true;
+            } else {
+                this.safeTurnsDrawn++;
+            }
+        }
+        if (this.breakdownDrawn && this.safeTurnsDrawn < this.turnsLeft) {
+            return turnNo + this.safeTurnsDrawn + 1;
+        }
+        return turnNo + this.turnsLeft;
+    }
+
+    /** Simulates given number of turns in which machine does not decide, finish product nor break */
+    protected void skipTurns(final int turns) {
+        if (!isBusy()) {
+            return;
+        }
+        if (turns >= this.turnsLeft || turns > this.safeTurnsDrawn) {
+            throw new IllegalStateException("Machine " + getId() + " can not skip " + turns + " turns.");
+        }
+        this.safeTurnsDrawn -= turns;
+        this.turnsLeft -= turns;
+    }
+
+    @Override
+    protected void saveState(final StateOutput output) throws IOException {
+        output.putInt(this.productType).putInt(this.turnsLeft).putBoolean(this.broken)
+                .putInt(this.safeTurnsDrawn).putBoolean(this.breakdownDrawn).putRandom(this.breakdownRandom);
+        super.saveState(output);
+    }
+
+    @Override
+    protected void restoreState(final StateInput input) throws IOException {
+        this.productType = input.getInt();
+        this.turnsLeft = input.getInt();
+        this.broken = input.getBoolean();
+        this.safeTurnsDrawn = input.getInt();
+        this.breakdownDrawn = input.getBoolean();
+        input.getRandom(this.breakdownRandom);
+        super.restoreState(input);
+    }
+
+    /** Returns true if machine works on product and draws breakdown every turn */
+    private boolean isBusy() {
+        return !this.broken && this.turnsLeft > 0 && this.productType >= 0;
+    }
+
     /** Checks if machine should break this turn */
     private boolean shouldMachineBreak() {
-        if (this.broken || this.turnsLeft <= 0 || this.productType < 0) {
+        if (!isBusy()) {
             return false;
         }
 
-        //check if machine should break
-        return (this.broken = new Random().nextInt(100) < 5);
+        //check if machine should break, using draws made ahead first
+        if (this.safeTurnsDrawn > 0) {
+            this.safeTurnsDrawn--;
+            return false;
+        }
+        if (this.breakdownDrawn) {
+            this.breakdownDrawn = false;
+            return (this.broken = true);
+        }
+        return (this.broken = drawBreakdown());
+    }
+
+    private boolean drawBreakdown() {
+        return this.breakdownRandom.nextInt(100) < 5;
     }
 
 }
@@ -1,23 +1,42 @@
 package pl.edu.agh.flowshop.engine;
 
 import com.google.common.collect.EvictingQueue;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import environment.ActionList;
 import environment.IAction;
 import environment.IEnvironment;
 import environment.IState;
 import org.apache.commons.math3.distribution.PoissonDistribution;
+import org.apache.commons.math3.random.RandomGeneratorFactory;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pl.edu.agh.flowshop.entity.Action;
 import pl.edu.agh.flowshop.entity.AgentState;
 import pl.edu.agh.flowshop.entity.Order;
-import pl.edu.agh.flowshop.utils.Attributes;
+import pl.edu.agh.flowshop.utils.AttributeSchema;
+import pl.edu.agh.flowshop.utils.InMemoryMetricsSink;
+import pl.edu.agh.flowshop.utils.MetricsSink;
 import pl.edu.agh.flowshop.utils.Parameters;
-import weka.core.Attribute;
+import pl.edu.agh.flowshop.utils.RandomStreams;
+import pl.edu.agh.flowshop.utils.StateInput;
+import pl.edu.agh.flowshop.utils.StateOutput;
+import pl.edu.agh.flowshop.utils.StreamRandom;
+import weka.core.FastVector;
 import weka.core.Instance;
+import weka.core.Instances;
 import weka.core.SparseInstance;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Represents whole model in experiment.
@@ -37,103 +56,550 @@ public class Model implements IEnvironment {
 
     public static final int MIN_ORDER_SIZE = 3;
 
+    /** Mean number of turns between orders */
+    public static final double ORDER_ARRIVAL_MEAN = 3;
+
     private final static Logger logger = LogManager.getLogger(Model.class);
 
     /** Model history used for learning */
     private final ModelHistory history;
 
+    /** Experiment parameters used by this model */
+    private final Parameters parameters;
+
+    /** Random streams of this model */
+    private final RandomStreams randomStreams;
+
+    /** Random stream used for generating orders */
+    private final StreamRandom orderRandom;
+
+    /** Random stream used for order arrival process */
+    private final StreamRandom arrivalRandom;
+
+    /** Order arrival process, draws number of turns between orders */
+    private final PoissonDistribution arrivals;
+
+    /** Open orders */
+    private final OrderBook orders;
+
+    /** Turn main loop is at, all turns before it are finished */
+    private int turnNo;
+
+    /** Turn of next order arrival */
+    private int newOrderTurn;
+
+    /** Writer of checkpoints, null if checkpoints are disabled */
+    private Checkpointer checkpointer;
+
     /** Buffer of finished products waiting for delivery */
-    private int[] finishedProducts = new int[Parameters.PRODUCT_TYPES_NO];
+    private int[] finishedProducts;
+
+    /** Layout of attributes describing state of this model, used for learning */
+    private AttributeSchema schema;
 
     /** Layers inside model. */
     private List<Layer> layers;
 
-    private List<Order> finishedOrders = new ArrayList<>();
+    /** Number of orders delivered so far */
+    private int finishedOrdersNo;
+
+    /** Number of orders generated so far, used for numbering orders */
+    private long generatedOrdersNo;
+
+    /** Executor training classifiers in background, null if training is synchronous */
+    private ExecutorService trainingExecutor;
+
+    /** Pool computing decisions of large layers in parallel, null if decisions are sequential */
+    private ForkJoinPool decisionPool;
+
+    /** Header shared by all decision instances of this model, must not be modified */
+    private Instances decisionHeader;
+
+    /** Recorder of simulation events, disabled unless trace directory is configured */
+    private TraceRecorder traceRecorder = new TraceRecorder();
+
+    /** Recorder of learning trajectories, disabled unless trajectory directory is configured */
+    private TrajectoryRecorder trajectoryRecorder = new TrajectoryRecorder();
+
+    /** Timers of main loop phases, disabled unless phase timing is configured */
+    private final PhaseTimers phaseTimers;
+
+    /** Training examples shared by all machines, each example is stored once */
+    private TrainingStore trainingStore;
 
-    public Model(final List<Layer> layers) {
+    /** Values backing {@link #decisionInstance}, reused for every decision */
+    private double[] decisionValues;
+
+    /** Versions of layers features of {@link #decisionValues} were filled at, used by sparse schema */
+    private int[] decisionVersions;
+
+    /** Features values of initial states of agents, shared by all of them */
+    private int[] initialFeatures;
+
+    /** Instance returned by {@link #prepareInstanceForDecision()}, reused for every decision */
+    private Instance decisionInstance;
+
+    /** Scratch buffers reused by {@link #getSimulatedAttributesValues(int[], int, int)} */
+    private int[] producedProducts;
+
+    private int[] addToProducts;
+
+    private int[] takenFromBufferProducts;
+
+    /** Total quantity in buffers of values last returned by {@link #getSimulatedAttributesValues(int[], int, int)} */
+    private int simulatedBuffersSum;
+
+    public Model(final List<Layer> layers, final Parameters parameters) {
+        this(layers, parameters, parameters.getSeed());
+    }
+
+    /** Creates model with random streams derived from given seed instead of one from parameters */
+    public Model(final List<Layer> layers, final Parameters parameters, final long seed) {
+        this.parameters = parameters;
+        this.randomStreams = new RandomStreams(seed);
+        this.orderRandom = this.randomStreams.stream(RandomStreams.ORDERS);
+        this.arrivalRandom = this.randomStreams.stream(RandomStreams.ARRIVALS);
+        this.arrivals = new PoissonDistribution(RandomGeneratorFactory.createRandomGenerator(this.arrivalRandom),
+                ORDER_ARRIVAL_MEAN, PoissonDistribution.DEFAULT_EPSILON, PoissonDistribution.DEFAULT_MAX_ITERATIONS);
+        this.orders = new OrderBook(parameters.getProductTypesNo());
+        this.finishedProducts = new int[parameters.getProductTypesNo()];
         this.history = new ModelHistory();
         this.layers = layers;
+        this.phaseTimers = new PhaseTimers(parameters.isPhaseTiming());
     }
 
     /**
-     * Experiment main loop
+     * Experiment main loop, keeping metrics in memory. Long runs should use {@link #run(MetricsSink)}.
      *
      * @return return queue sizes from each iteration
      */
     public List<Double> run() throws Exception {
+        InMemoryMetricsSink sink = new InMemoryMetricsSink(this.parameters.getTurnLimit());
+        run(sink);
+        return new ArrayList<>(sink.getQueueSizesList());
+    }
+
+    /**
+     * Experiment main loop, metrics of every turn are pushed to given sink as soon as turn ends.
+     * Sink is not closed.
+     * </br>
+     * If checkpoint directory is configured, checkpoint is written every checkpoint interval turns. Run resumes from
+     * checkpoint of the same seed and configuration if there is one, pushing metrics of turns after checkpoint only, and deletes
+     * checkpoint once it is finished. If policy directory is configured, policies of machines are exported to it at
+     * end of run. If layers are pipelined, they run on their own threads, see {@link LayerPipeline}.
+     */
+    public void run(final MetricsSink sink) throws Exception {
+        if (this.parameters.isBackgroundTraining()) {
+            this.trainingExecutor = Executors.newFixedThreadPool(this.parameters.getTrainingThreads(),
+                    new ThreadFactoryBuilder().setDaemon(true).setNameFormat("training-%d").build());
+        }
+        if (this.parameters.isParallelDecisions()) {
+            this.decisionPool = new ForkJoinPool(this.parameters.getDecisionThreads());
+        }
+
+        if (this.parameters.getTraceDir() != null) {
+            this.traceRecorder = new TraceRecorder(Paths.get(this.parameters.getTraceDir()),
+                    "seed-" + this.randomStreams.getSeed());
+        }
+        if (this.parameters.getTrajectoryDir() != null) {
+            this.trajectoryRecorder = new TrajectoryRecorder(Paths.get(this.parameters.getTrajectoryDir()),
+                    "seed-" + this.randomStreams.getSeed(), this.parameters.getTrajectoryFormat(), this.schema,
+                    this.parameters.getProductTypesNo());
+        }
+        this.phaseTimers.register("seed-" + this.randomStreams.getSeed());
+        if (this.parameters.getCheckpointDir() != null) {
+            this.checkpointer = new Checkpointer(Paths.get(this.parameters.getCheckpointDir()), getRunName(),
+                    this.parameters.getCheckpointInterval());
+        }
+
+        // failure of closing checkpointer is suppressed by failure which ended run, if there is one
+        try (Checkpointer checkpointer = this.checkpointer) {
+            start();
+            if (this.parameters.isPipelinedLayers()) {
+                runPipeline(sink);
+            } else {
+                runLoop(sink);
+            }
+            if (this.parameters.getPolicyDir() != null) {
+                exportPolicies(Paths.get(this.parameters.getPolicyDir()));
+            }
+            if (checkpointer != null) {
+                checkpointer.delete();
+            }
+        } finally {
+            this.checkpointer = null;
+            if (this.phaseTimers.isEnabled()) {
+                logger.info("Phase timings of seed " + this.randomStreams.getSeed() + ":\n"
+                        + this.phaseTimers.getReport());
+            }
+            this.phaseTimers.unregister();
+            this.traceRecorder.close();
+            this.traceRecorder = new TraceRecorder();
+            this.trajectoryRecorder.close();
+            this.trajectoryRecorder = new TrajectoryRecorder();
+            if (this.trainingExecutor != null) {
+                this.trainingExecutor.shutdownNow();
+                this.trainingExecutor = null;
+            }
+            if (this.decisionPool != null) {
+                this.decisionPool.shutdownNow();
+                this.decisionPool = null;
+            }
+        }
+    }
+
+    /** Restores model from checkpoint if there is one, otherwise draws first order arrival */
+    private void start() throws IOException {
+        if (this.checkpointer != null && this.checkpointer.exists()) {
+            this.checkpointer.restore(this);
+            logger.info("Seed " + this.randomStreams.getSeed() + " resumed from turn " + this.turnNo + " of "
+                    + this.checkpointer.getPath());
+        } else {
+            this.newOrderTurn = this.arrivals.sample();
+        }
+        if (this.checkpointer != null) {
+            this.checkpointer.start(this.turnNo);
+        }
+    }
+
+    /** Experiment main loop body, starts from {@link #turnNo} */
+    private void runLoop(final MetricsSink sink) throws Exception {
         logger.debug("------------------------------------------");
         logger.debug("---------- EXPERIMENT - START ------------");
         logger.debug("------------------------------------------");
-        PoissonDistribution random = new PoissonDistribution(3);
-        List<Order> orders = new LinkedList<>();
+        OrderBook orders = this.orders;
         Order order;
         int[] products;
-        int newOrderTurn = random.sample();
-        List<Double> queueSizes = new ArrayList<>();
+
+        EventCalendar calendar = this.parameters.isEventDriven() ? createCalendar() : null;
 
         //main loop
-        for (int turnNo = 0; turnNo < Parameters.TURN_LIMIT; turnNo++) {
-            logger.debug("Turn: " + turnNo);
+        PhaseTimers timers = this.phaseTimers;
+        while (this.turnNo < this.parameters.getTurnLimit()) {
+            int turnNo = this.turnNo;
+            if (this.checkpointer != null && this.checkpointer.isDue(turnNo)) {
+                saveCheckpoint(turnNo);
+            }
+
+            long turnStart = timers.start();
+            this.traceRecorder.setTurnNo(turnNo);
+            this.trajectoryRecorder.setTurnNo(turnNo);
 
             //train on collected data
-            if (turnNo % Parameters.LEARNING_TURN == 0) {
-                logger.debug("Learning turn!");
-                for (Layer layer : this.layers) {
-                    for (Machine machine : layer.getMachines()) {
-                        machine.train();
-                    }
-                }
+            if (turnNo % this.parameters.getLearningTurn() == 0) {
+                learn(turnNo);
             }
 
             //generate new order
-            if (turnNo == newOrderTurn) {
-                order = generateOrder();
+            order = arriveOrder(turnNo);
+            if (order != null) {
                 orders.add(order);
                 products = order.getProductsList();
-                newOrderTurn += random.sample();
-                logger.debug("Order generated: " + order.toString());
             } else {
-                products = new int[Parameters.PRODUCT_TYPES_NO];
+                products = new int[parameters.getProductTypesNo()];
             }
 
             //execute turn across layers and collect finished products
             int[] finishedProducts = products;
             for (Layer layer : this.layers) {
                 finishedProducts = layer.tick(finishedProducts);
-                for(int i=0; i<Parameters.PRODUCT_TYPES_NO; i++) {
+                for(int i=0; i<parameters.getProductTypesNo(); i++) {
                     if(finishedProducts[i] < 0) {
                         throw new Exception("Negative finished products number.");
                     }
                 }
             }
 
-            for (int i = 0; i < Parameters.PRODUCT_TYPES_NO; i++) {
+            for (int i = 0; i < parameters.getProductTypesNo(); i++) {
                 this.finishedProducts[i] += finishedProducts[i];
             }
 
             //remove finished orders
-            deliverOrders(orders, this.finishedProducts);
-
-            for (Order order1 : orders) {
-                order1.decreaseDueTime();
+            long deliveryStart = timers.start();
+            deliverOrders(orders, this.finishedProducts, turnNo);
+            timers.stop(timers.getDelivery(), deliveryStart);
+
+            double queueSize = getQueuesSize();
+            sink.accept(turnNo, queueSize, this.finishedOrdersNo);
+            traceBuffers();
+            timers.stop(timers.getTurn(), turnStart);
+
+            //in event driven mode jump to next event, turns in between only count down machines jobs
+            int nextTurnNo = turnNo + 1;
+            if (calendar != null) {
+                nextTurnNo = Math.min(scheduleEvents(calendar, turnNo, this.newOrderTurn),
+                        this.parameters.getTurnLimit());
+                skipTurns(turnNo + 1, nextTurnNo, queueSize, sink);
             }
-
-            queueSizes.add(getQueuesSize(turnNo));
-            logger.debug("Orders size:" + orders.size());
-            logger.debug("Finished orders size:" + finishedOrders.size());
+            this.turnNo = nextTurnNo;
         }
 
+        awaitTraining();
+        logTrainSets();
+
         logger.debug("------------------------------------------");
         logger.debug("---------- EXPERIMENT - STOP- ------------");
         logger.debug("------------------------------------------");
+    }
+
+    /**
+     * Main loop body of pipelined mode, starts from {@link #turnNo}, see {@link LayerPipeline}. Learning needs all
+     * turns before it finished, so pipeline is emptied before learning turns and only turns between them are
+     * pipelined. Emptying pipeline changes decisions after it, so checkpoints are written only in learning turns,
+     * in first one they are due in, and resumed run gives the same results. Order arrives when its turn enters
+     * pipeline and it is added to order book when turn leaves it, so deliveries see the same orders as in sequential
+     * mode.
+     */
+    private void runPipeline(final MetricsSink sink) throws Exception {
+        checkPipelined();
+        logger.debug("------------------------------------------");
+        logger.debug("---- PIPELINED EXPERIMENT - START --------");
+        logger.debug("------------------------------------------");
+        int learningTurn = this.parameters.getLearningTurn();
+        int turnLimit = this.parameters.getTurnLimit();
+
+        try (LayerPipeline pipeline = new LayerPipeline(this)) {
+            while (this.turnNo < turnLimit) {
+                int startTurnNo = this.turnNo;
+                if (startTurnNo % learningTurn == 0) {
+                    if (this.checkpointer != null && this.checkpointer.isDue(startTurnNo)) {
+                        saveCheckpoint(startTurnNo);
+                    }
+                    learn(startTurnNo);
+                }
+
+                // turns until next learning turn are pipelined
+                int endTurnNo = Math.min((startTurnNo / learningTurn + 1) * learningTurn, turnLimit);
+                int nextTurnNo = startTurnNo;
+                pipeline.start(startTurnNo);
+                while (this.turnNo < endTurnNo) {
+                    if (nextTurnNo < endTurnNo && !pipeline.isFull()) {
+                        Order order = arriveOrder(nextTurnNo);
+                        pipeline.submit(nextTurnNo, order, order != null ? order.getProductsList()
+                                : new int[this.parameters.getProductTypesNo()]);
+                        nextTurnNo++;
+                    } else {
+                        finishTurn(pipeline.take(), sink);
+                    }
+                }
+            }
+        }
+
+        awaitTraining();
+        logTrainSets();
+
+        logger.debug("------------------------------------------");
+        logger.debug("---- PIPELINED EXPERIMENT - STOP ---------");
+        logger.debug("------------------------------------------");
+    }
+
+    /**
+     * Checks that model can run in pipelined mode: layers touch only their own machines, so agents must not simulate
+     * whole model nor learn on delivery, and events of layers can not be traced nor skipped
+     */
+    private void checkPipelined() {
+        if (this.parameters.isEventDriven()) {
+            throw new IllegalStateException("Pipelined layers can not run in event driven mode.");
+        }
+        if (this.traceRecorder.isEnabled()) {
+            throw new IllegalStateException("Pipelined layers can not be traced.");
+        }
+        for (Layer layer : this.layers) {
+            for (Machine machine : layer.getMachines()) {
+                if (!machine.isSupervised() || machine.isUpdateable()) {
+                    throw new IllegalStateException("Pipelined layers need supervised machines with non updateable "
+                            + "classifiers, machine " + machine.getId() + " uses " + machine.getClassifierName() + ".");
+                }
+            }
+        }
+    }
+
+    /** Finishes turn which left pipeline: adds its order, delivers orders and pushes metrics */
+    private void finishTurn(final LayerPipeline.Handoff handoff, final MetricsSink sink) throws Exception {
+        int turnNo = handoff.turnNo;
+        this.trajectoryRecorder.setTurnNo(turnNo);
+        if (handoff.order != null) {
+            this.orders.add(handoff.order);
+        }
+        for (int i = 0; i < this.finishedProducts.length; i++) {
+            this.finishedProducts[i] += handoff.products[i];
+        }
+
+        long deliveryStart = this.phaseTimers.start();
+        deliverOrders(this.orders, this.finishedProducts, turnNo, handoff.features);
+        this.phaseTimers.stop(this.phaseTimers.getDelivery(), deliveryStart);
+
+        sink.accept(turnNo, this.schema.sumBuffers(handoff.features), this.finishedOrdersNo);
+        this.turnNo = turnNo + 1;
+    }
+
+    /** Waits for background training and writes checkpoint of state at start of given turn */
+    private void saveCheckpoint(final int turnNo) throws Exception {
+        long checkpointStart = this.phaseTimers.start();
+        awaitTraining();
+        this.checkpointer.save(this, turnNo);
+        this.phaseTimers.stop(this.phaseTimers.getCheckpoint(), checkpointStart);
+    }
+
+    /** Trains all machines on collected data, waiting for background training at barrier turns */
+    private void learn(final int turnNo) throws Exception {
+        logger.debug("Learning turn!");
+        long learningStart = this.phaseTimers.start();
+        for (Layer layer : this.layers) {
+            for (Machine machine : layer.getMachines()) {
+                machine.train();
+            }
+        }
+        int barrier = this.parameters.getTrainingBarrier();
+        if (barrier > 0 && turnNo % barrier == 0) {
+            awaitTraining();
+        }
+        this.phaseTimers.stop(this.phaseTimers.getLearning(), learningStart);
+    }
+
+    /** Generates order if one arrives in given turn and draws next arrival, returns null if none arrives */
+    private Order arriveOrder(final int turnNo) {
+        if (turnNo != this.newOrderTurn) {
+            return null;
+        }
+        long orderStart = this.phaseTimers.start();
+        Order order = generateOrder(turnNo);
+        this.newOrderTurn += this.arrivals.sample();
+        this.traceRecorder.record(TraceRecorder.ARRIVAL, (int) order.getNumber(), order.getDueTurn(),
+                order.getPriority());
+        this.phaseTimers.stop(this.phaseTimers.getOrderGeneration(), orderStart);
+        return order;
+    }
+
+    /**
+     * Creates calendar of events pending at start of {@link #turnNo}. Every source has exactly one pending event,
+     * so calendar depends only on state of model and it is the same for fresh and resumed run.
+     */
+    private EventCalendar createCalendar() {
+        EventCalendar calendar = new EventCalendar();
+        for (Layer layer : this.layers) {
+            for (Machine machine : layer.getMachines()) {
+                // machine skipped turns before this one, so its next event is counted as if from previous turn
+                calendar.schedule(Math.max(machine.getNextEventTurn(this.turnNo - 1), this.turnNo),
+                        EventCalendar.MACHINE, machine);
+            }
+        }
+        int learningTurn = this.parameters.getLearningTurn();
+        calendar.schedule((this.turnNo + learningTurn - 1) / learningTurn * learningTurn, EventCalendar.LEARNING,
+                null);
+        // arrival drawn as 0 turns after previous one never happens
+        if (this.newOrderTurn >= this.turnNo) {
+            calendar.schedule(this.newOrderTurn, EventCalendar.ARRIVAL, null);
+        }
+        return calendar;
+    }
+
+    /**
+     * Schedules next events of sources which events were due in given turn
+     *
+     * @param newOrderTurn turn of next order arrival
+     * @return turn of next event
+     */
+    private int scheduleEvents(final EventCalendar calendar, final int turnNo, final int newOrderTurn) {
+        for (EventCalendar.Event event : calendar.pollDue(turnNo)) {
+            switch (event.getType()) {
+                case EventCalendar.MACHINE:
+                    calendar.schedule(event.getMachine().getNextEventTurn(turnNo), EventCalendar.MACHINE,
+                            event.getMachine());
+                    break;
+                case EventCalendar.LEARNING:
+                    int learningTurn = this.parameters.getLearningTurn();
+                    calendar.schedule((turnNo / learningTurn + 1) * learningTurn, EventCalendar.LEARNING, null);
+                    break;
+                case EventCalendar.ARRIVAL:
+                    // arrival drawn as 0 turns after previous one never happens, as in turn by turn mode
+                    if (newOrderTurn > turnNo) {
+                        calendar.schedule(newOrderTurn, EventCalendar.ARRIVAL, null);
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown event type: " + event.getType());
+            }
+        }
+        return calendar.getNextTurn();
+    }
+
+    /**
+     * Simulates turns without events, queues do not change in such turns
+     *
+     * @param fromTurnNo first skipped turn
+     * @param toTurnNo   turn after last skipped one
+     * @param queueSize  queue size in skipped turns
+     */
+    private void skipTurns(final int fromTurnNo, final int toTurnNo, final double queueSize, final MetricsSink sink)
+            throws IOException {
+        int turns = toTurnNo - fromTurnNo;
+        if (turns <= 0) {
+            return;
+        }
+        for (Layer layer : this.layers) {
+            for (Machine machine : layer.getMachines()) {
+                machine.skipTurns(turns);
+            }
+        }
+        for (int turnNo = fromTurnNo; turnNo < toTurnNo; turnNo++) {
+            sink.accept(turnNo, queueSize, this.finishedOrdersNo);
+        }
+    }
+
+    /**
+     * Exports policies of all machines into given directory, one file per machine named after seed, configuration and
+     * machine id
+     */
+    private void exportPolicies(final Path directory) throws Exception {
+        Files.createDirectories(directory);
+        for (Layer layer : this.layers) {
+            for (Machine machine : layer.getMachines()) {
+                machine.getPolicy().write(directory.resolve(Policy.getFileName(getRunName(), machine.getId())));
+            }
+        }
+        logger.info("Policies of seed " + this.randomStreams.getSeed() + " exported to " + directory);
+    }
+
+    /** Reports sizes of machines train sets and number of evicted examples, used for tuning retention policies */
+    private void logTrainSets() {
+        for (Layer layer : this.layers) {
+            for (Machine machine : layer.getMachines()) {
+                logger.info("Machine " + machine.getId() + " train set size: " + machine.getTrainSetSize()
+                        + ", evicted examples: " + machine.getEvictedExamplesNo());
+            }
+        }
+        logger.info("Training store rows: " + getTrainingStore().getLiveNo() + " kept of "
+                + getTrainingStore().getAppendedNo() + " appended");
+    }
 
-        return queueSizes;
+    /** Waits for background training of all machines to finish */
+    private void awaitTraining() throws Exception {
+        for (Layer layer : this.layers) {
+            for (Machine machine : layer.getMachines()) {
+                machine.awaitTraining();
+            }
+        }
     }
 
+    /**
+     * Returns actions of all idle machines. With sparse schema only actions of agent state belongs to are returned,
+     * so listing them does not cost as much as the whole model. This changes what agents learn: in dense mode agent
+     * can also pick switch of another idle machine and simulate it in {@link #successorState(IState, IAction)}, in
+     * sparse mode it only learns switches of its own machine.
+     */
     @Override
     public ActionList getActionList(final IState iState) {
         ActionList result = new ActionList(iState);
-        for (int productNo = 0; productNo < Parameters.PRODUCT_TYPES_NO; productNo++) {
+        int agentNo = ((AgentState) iState).getAgentNo();
+        if (this.schema.isSparse() && agentNo >= 0) {
+            for (int productNo = 0; productNo < parameters.getProductTypesNo(); productNo++) {
+                result.add(new Action(agentNo, productNo));
+            }
+            return result;
+        }
+
+        for (int productNo = 0; productNo < parameters.getProductTypesNo(); productNo++) {
             for (Layer layer : this.layers) {
                 for (Machine machine : layer.getMachines()) {
                     if (!machine.isWorking()) {
@@ -151,34 +617,27 @@ public class Model implements IEnvironment {
         AgentState state = (AgentState) iState;
         Action action = (Action) iAction;
 
-        AgentState result = new AgentState(this);
-        List<Integer> currentAttrValues = getAttributesValues(true, state.getAttrValues(), action.getAgentNo(),
+        int[] currentAttrValues = getSimulatedAttributesValues(state.getAttrValues(), action.getAgentNo(),
                 action.getProductToProcess());
-        result.setAttrValues(currentAttrValues);
 
+        AgentState result = new AgentState(this, currentAttrValues, action.getAgentNo());
+        result.setBuffersSum(this.simulatedBuffersSum);
         return result;
     }
 
     @Override
     public double getReward(final IState iState, final IState iState1, final IAction iAction) {
-        int[] buffersBefore = new int[Parameters.PRODUCT_TYPES_NO];
-        int[] buffersAfter = new int[Parameters.PRODUCT_TYPES_NO];
-
-        for (int i = 0; i < Attributes.size()-1; i++) {
-            Attribute attr = (Attribute) Attributes.attributes.elementAt(i);
-            String attrName = attr.name();
-            if (attrName.contains(Attributes.BUFFER_PREFIX)) {
-                int productNo = Character.getNumericValue(attrName.charAt(attrName.length()-1));
-                buffersBefore[productNo] += ((AgentState) iState).getAttrValues().get(i);
-                buffersAfter[productNo] += ((AgentState) iState1).getAttrValues().get(i);
-            }
-        }
+        // reward is decrease of number of products waiting in all buffers
+        return getBuffersSum((AgentState) iState) - getBuffersSum((AgentState) iState1);
+    }
 
-        int result = 0;
-        for (int i = 0; i < Parameters.PRODUCT_TYPES_NO; i++) {
-            result += buffersBefore[i] - buffersAfter[i];
+    /** Returns total quantity in buffers of state, summed once per state */
+    private int getBuffersSum(final AgentState state) {
+        int result = state.getBuffersSum();
+        if (result < 0) {
+            result = this.schema.sumBuffers(state.getAttrValues());
+            state.setBuffersSum(result);
         }
-
         return result;
     }
 
@@ -196,164 +655,407 @@ public class Model implements IEnvironment {
         return layers;
     }
 
-    /** Prepares entry for decision */
+    /** Returns number of orders delivered so far */
+    public int getFinishedOrdersNo() {
+        return finishedOrdersNo;
+    }
+
+    /** Returns executor for background training, null if classifiers are trained synchronously */
+    protected ExecutorService getTrainingExecutor() {
+        return trainingExecutor;
+    }
+
+    /** Returns pool computing decisions of large layers in parallel, null if decisions are sequential */
+    protected ForkJoinPool getDecisionPool() {
+        return decisionPool;
+    }
+
+    /** Sets pool decisions are computed on outside of {@link #run(MetricsSink)}, which sets it from parameters */
+    protected void setDecisionPool(final ForkJoinPool decisionPool) {
+        this.decisionPool = decisionPool;
+    }
+
+    public RandomStreams getRandomStreams() {
+        return randomStreams;
+    }
+
+    public Parameters getParameters() {
+        return parameters;
+    }
+
+    /** Returns weka attributes of this model, returned vector must not be modified */
+    public FastVector getAttributes() {
+        return schema.getAttributes();
+    }
+
+    public AttributeSchema getSchema() {
+        return schema;
+    }
+
+    public void setSchema(final AttributeSchema schema) {
+        this.schema = schema;
+    }
+
+    /** Returns number of attributes, including class attribute */
+    public int getAttributesNo() {
+        return schema.getAttributesNo();
+    }
+
+    /** Returns header of decision dataset, created once per model and shared by all decisions */
+    protected Instances getDecisionHeader() {
+        if (this.decisionHeader == null) {
+            this.decisionHeader = new Instances("Decide", this.schema.getAttributes(), 0);
+            this.decisionHeader.setClassIndex(this.decisionHeader.numAttributes() - 1);
+        }
+        return this.decisionHeader;
+    }
+
+    /** Returns recorder of simulation events, disabled one if tracing is off */
+    protected TraceRecorder getTraceRecorder() {
+        return this.traceRecorder;
+    }
+
+    /** Returns recorder of learning trajectories, disabled one if trajectories are not recorded */
+    protected TrajectoryRecorder getTrajectoryRecorder() {
+        return this.trajectoryRecorder;
+    }
+
+    /** Returns timers of main loop phases, disabled ones if phase timing is off */
+    public PhaseTimers getPhaseTimers() {
+        return this.phaseTimers;
+    }
+
+    /** Returns features values of initial states of agents, shared by all of them, must not be modified */
+    protected int[] getInitialFeatures() {
+        if (this.initialFeatures == null) {
+            this.initialFeatures = new int[this.schema.getFeaturesNo()];
+        }
+        return this.initialFeatures;
+    }
+
+    /** Returns store of training examples shared by all machines of this model */
+    protected TrainingStore getTrainingStore() {
+        if (this.trainingStore == null) {
+            this.trainingStore = new TrainingStore(getDecisionHeader());
+        }
+        return this.trainingStore;
+    }
+
+    /**
+     * Prepares entry for decision. Returned instance is reused between calls, so it is valid only until next call
+     * of this method. With sparse schema only features of layers which changed since previous call are filled again,
+     * so decisions of large models cost as much as changes between them.
+     */
     protected Instance prepareInstanceForDecision() {
-        Instance instance = new SparseInstance(Attributes.size() - 1);
-        setAttributesValues(instance);
+        if (this.decisionInstance == null) {
+            this.decisionValues = new double[getAttributesNo()];
+            this.decisionInstance = new Instance(1.0, this.decisionValues);
+            this.decisionInstance.setDataset(getDecisionHeader());
+        }
 
-        return instance;
+        // instance is backed by decisionValues, so filling the array updates it in place
+        if (this.schema.isSparse()) {
+            fillChangedLayersValues();
+        } else {
+            fillAttributesValues(this.decisionValues);
+        }
+        this.decisionValues[this.decisionValues.length - 1] = Instance.missingValue();
+
+        return this.decisionInstance;
     }
 
     /** Return number of all product in all queues */
-    private Double getQueuesSize(final int turnNo) {
+    private double getQueuesSize() {
         double result = 0;
-        StringBuilder sb;
         for (Layer layer : this.layers) {
-            sb = new StringBuilder("Buffer of layer" + layer.getId() + " in turn " + turnNo + " [");
-            for (int product : layer.getTasksQueue()) {
-                sb.append(product).append(",");
-            }
-            logger.debug(sb.toString());
             result += layer.getQueueSize();
         }
         return result;
     }
 
-    /** Returns attributes list in form of integer list */
-    private List<Integer> getAttributesValues() {
-        return getAttributesValues(false, null, 0, 0);
+    /** Records buffer levels of all layers and finished products waiting for delivery */
+    private void traceBuffers() {
+        if (!this.traceRecorder.isEnabled()) {
+            return;
+        }
+        for (Layer layer : this.layers) {
+            int[] tasksQueue = layer.getTasksQueue();
+            for (int product = 0; product < tasksQueue.length; product++) {
+                this.traceRecorder.record(TraceRecorder.BUFFER, layer.getId(), product, tasksQueue[product]);
+            }
+        }
+        for (int product = 0; product < this.finishedProducts.length; product++) {
+            this.traceRecorder.record(TraceRecorder.STOCK, product, this.finishedProducts[product], 0);
+        }
+    }
+
+    /**
+     * Writes current attributes values into given array, into slots of {@link #schema}.
+     * Iterates by index to avoid allocating iterators on the decision path.
+     */
+    private void fillAttributesValues(final double[] values) {
+        for (int layerNo = 0; layerNo < this.layers.size(); layerNo++) {
+            fillLayerValues(values, layerNo);
+        }
     }
 
-    /** Set attributes values in given instance */
-    private void setAttributesValues(final Instance instance) {
-        int attrIdx = 0;
-        for (Integer val : getAttributesValues()) {
-            instance.setValue(attrIdx++, val);
+    /** Fills {@link #decisionValues} of layers which changed since previous decision, of all layers on first one */
+    private void fillChangedLayersValues() {
+        boolean first = this.decisionVersions == null;
+        if (first) {
+            this.decisionVersions = new int[this.layers.size()];
+        }
+        for (int layerNo = 0; layerNo < this.layers.size(); layerNo++) {
+            int version = this.layers.get(layerNo).getVersion();
+            if (first || version != this.decisionVersions[layerNo]) {
+                fillLayerValues(this.decisionValues, layerNo);
+                this.decisionVersions[layerNo] = version;
+            }
+        }
+    }
+
+    /** Writes current attributes values of given layer into given array, into slots of {@link #schema} */
+    private void fillLayerValues(final double[] values, final int layerNo) {
+        AttributeSchema schema = this.schema;
+        Layer layer = this.layers.get(layerNo);
+        List<Machine> machines = layer.getMachines();
+        for (int machineNo = 0; machineNo < machines.size(); machineNo++) {
+            values[schema.getHealthSlot(layerNo, machineNo)] =
+                    schema.getHealthValue(machines.get(machineNo).isBroken());
+        }
+
+        for (int i = 0; i < parameters.getProductTypesNo(); i++) {
+            values[schema.getBufferSlot(layerNo, i)] = Math.max(layer.getQuantityInBuffer(i), 0);
         }
     }
 
     /**
-     * Returns attributes list in form of integer list
+     * Returns attributes values after simulating one turn, total quantity in their buffers is left in
+     * {@link #simulatedBuffersSum}
      *
-     * @param simulate   if we should simulate one turn
      * @param attrValues starting attributes values for simulation
      * @param agentNo    no. of agent performing an action
      * @param action     action performed by agent
      */
-    private List<Integer> getAttributesValues(final boolean simulate, final List<Integer> attrValues, final int agentNo, final int action) {
-        List<Integer> result = new ArrayList<>();
-        int[] producedProducts = new int[Parameters.PRODUCT_TYPES_NO];
-        int[] addToProducts = new int[Parameters.PRODUCT_TYPES_NO];
-        int[] takenFromBufferProducts = new int[Parameters.PRODUCT_TYPES_NO];
-
-        int attrNo = 0;
-        for (Layer layer : this.layers) {
-            for (Machine machine : layer.getMachines()) {
+    private int[] getSimulatedAttributesValues(final int[] attrValues, final int agentNo, final int action) {
+        AttributeSchema schema = this.schema;
+        int[] result = new int[schema.getFeaturesNo()];
+        if (this.producedProducts == null) {
+            this.producedProducts = new int[parameters.getProductTypesNo()];
+            this.addToProducts = new int[parameters.getProductTypesNo()];
+            this.takenFromBufferProducts = new int[parameters.getProductTypesNo()];
+        }
+        int[] producedProducts = this.producedProducts;
+        int[] addToProducts = this.addToProducts;
+        int[] takenFromBufferProducts = this.takenFromBufferProducts;
+        int buffersSum = 0;
+        Arrays.fill(producedProducts, 0);
+        Arrays.fill(addToProducts, 0);
+        Arrays.fill(takenFromBufferProducts, 0);
+
+        for (int layerNo = 0; layerNo < this.layers.size(); layerNo++) {
+            List<Machine> machines = this.layers.get(layerNo).getMachines();
+            for (int machineNo = 0; machineNo < machines.size(); machineNo++) {
+                Machine machine = machines.get(machineNo);
                 if (machine.getProductToBeProcessed() > 0) {
                     producedProducts[machine.getProductToBeProcessed()] += 1;
                     int nextProductType = agentNo == machine.getId() ? action : machine.getProductToBeProcessed();
                     takenFromBufferProducts[nextProductType] += 1;
                 }
-                result.add(machine.isBroken() ? 0 : 1);
-                attrNo++;
+                result[schema.getHealthSlot(layerNo, machineNo)] = schema.getHealthValue(machine.isBroken());
             }
 
-            for (int i = 0; i < Parameters.PRODUCT_TYPES_NO; i++) {
-                int quantity = layer.getQuantityInBuffer(i);
-
-                if (simulate) {
-                    quantity = attrValues.get(attrNo) + addToProducts[i] - takenFromBufferProducts[i];
-                }
-
-                if (quantity < 0) {
-                    quantity = 0;
-                }
-                result.add(quantity);
-                attrNo++;
+            for (int i = 0; i < parameters.getProductTypesNo(); i++) {
+                int slot = schema.getBufferSlot(layerNo, i);
+                int quantity = attrValues[slot] + addToProducts[i] - takenFromBufferProducts[i];
+                result[slot] = Math.max(quantity, 0);
+                buffersSum += result[slot];
             }
 
+            // products finished in this layer are added to buffer of next one
+            int[] swap = addToProducts;
             addToProducts = producedProducts;
-            producedProducts = new int[Parameters.PRODUCT_TYPES_NO];
-            takenFromBufferProducts = new int[Parameters.PRODUCT_TYPES_NO];
+            producedProducts = swap;
+            Arrays.fill(producedProducts, 0);
+            Arrays.fill(takenFromBufferProducts, 0);
         }
 
+        this.simulatedBuffersSum = buffersSum;
         return result;
     }
 
     /**
-     * Removes orders from queue when all products are ready
+     * Removes orders from order book when all products are ready
      *
      * @return reward for completed orders
      */
-    private int deliverOrders(final List<Order> orders, final int[] finishedProducts) throws Exception {
+    protected int deliverOrders(final OrderBook orders, final int[] finishedProducts, final int turnNo)
+            throws Exception {
+        return deliverOrders(orders, finishedProducts, turnNo, null);
+    }
+
+    /**
+     * Removes orders from order book when all products are ready, history entries are given features values or
+     * current state of layers if they are null
+     *
+     * @return reward for completed orders
+     */
+    private int deliverOrders(final OrderBook orders, final int[] finishedProducts, final int turnNo,
+                              final int[] features) throws Exception {
         int reward = 0;
-        logger.debug("Delivering orders!");
-        logger.debug("Orders queue size: " + orders.size());
-        StringBuilder sb = new StringBuilder("");
-        for (int product : finishedProducts) {
-            sb.append(product).append(",");
-        }
-        logger.debug("Finished products: [" + sb + "]");
-        for(Iterator<Order> it = orders.iterator(); it.hasNext();) {
-            Order order = it.next();
+        // orders are delivered in priority order, each one only if it can still be completed
+        Order order;
+        while ((order = orders.pollDeliverable(finishedProducts)) != null) {
             int[] demandedProducts = order.getProductsList();
 
-            boolean completed = true;
-            for (int j = 0; j < Parameters.PRODUCT_TYPES_NO; j++) {
-                if (demandedProducts[j] > finishedProducts[j]) {
-                    logger.debug("Not enough part to finish order: " + order.toString());
-                    sb = new StringBuilder("");
-                    for (int product : demandedProducts) {
-                        sb.append(product).append(",");
-                    }
-                    completed = false;
-                }
-            }
-            if(!completed) {
-                // not completed order -> proceed to next one
-                continue;
-            }
-
-            //order finished -> remove from queue
+            //order finished -> take its products
             for (int j = 0; j < finishedProducts.length; j++) {
                 finishedProducts[j] -= demandedProducts[j];
                 if(finishedProducts[j] < 0) {
                     throw new Exception("Negative finished products: " + finishedProducts[j]);
                 }
             }
-            finishedOrders.add(order);
-            it.remove(); // removing finished order from list
-            logger.debug("Order finished: " + order.toString());
+            finishedOrdersNo++;
 
-            reward += order.getReward() + order.getValue();
-            if (order.getDueTime() > 0) {
-                logger.debug("Penalty received");
-                reward -= order.getPenalty();
+            int orderReward = order.getReward() + order.getValue(parameters);
+            if (order.getDueTime(turnNo) > 0) {
+                orderReward -= order.getPenalty();
             }
+            reward += orderReward;
+            this.traceRecorder.record(TraceRecorder.DELIVERY, (int) order.getNumber(), orderReward,
+                    order.getDueTime(turnNo));
 
-            this.history.addEntry();
+            if (features != null) {
+                this.history.addEntry(features);
+            } else {
+                this.history.addEntry();
+            }
+            int row = getTrainingStore().append(this.history.getTrainingExample(reward));
+            this.trajectoryRecorder.recordExample(this.trainingStore.get(row), reward);
             for (Layer layer : this.layers) {
                 for (Machine machine : layer.getMachines()) {
-                    machine.addTrainData(this.history.getTrainingExample(reward));
+                    machine.addTrainData(row);
                 }
             }
+            this.trainingStore.release(row);
         }
 
-        logger.debug("Finished orders count: " + finishedOrders.size());
-
         return reward;
     }
 
-    /** Method generates new order. */
-    private Order generateOrder() {
-        Random random = new Random();
-        int[] order = new int[Parameters.PRODUCT_TYPES_NO];
+    /**
+     * Writes state of model at start of {@link #turnNo} for checkpoint: main loop state, orders, stock, history,
+     * training examples and state of layers with their machines, including all random streams.
+     * Background training must be finished.
+     */
+    protected void saveState(final StateOutput output) throws IOException {
+        writeFingerprint(output);
+        output.putInt(this.turnNo).putInt(this.newOrderTurn).putInt(this.finishedOrdersNo)
+                .putLong(this.generatedOrdersNo).putInts(this.finishedProducts);
+        output.putRandom(this.orderRandom).putRandom(this.arrivalRandom);
+
+        List<Order> openOrders = this.orders.getOrders();
+        output.putInt(openOrders.size());
+        for (Order order : openOrders) {
+            output.putLong(order.getNumber()).putInts(order.getProductsList()).putInt(order.getDueTurn())
+                    .putInt(order.getReward()).putInt(order.getPenalty()).putInt(order.getPriority());
+        }
+
+        this.history.saveState(output);
+        getTrainingStore().saveState(output);
+        for (Layer layer : this.layers) {
+            layer.saveState(output);
+        }
+    }
+
+    /** Restores state written by {@link #saveState(StateOutput)} into model which was not run yet */
+    protected void restoreState(final StateInput input) throws IOException {
+        checkFingerprint(input);
+        this.turnNo = input.getInt();
+        this.newOrderTurn = input.getInt();
+        this.finishedOrdersNo = input.getInt();
+        this.generatedOrdersNo = input.getLong();
+        input.getInts(this.finishedProducts);
+        input.getRandom(this.orderRandom);
+        input.getRandom(this.arrivalRandom);
+
+        int ordersNo = input.getInt();
+        for (int i = 0; i < ordersNo; i++) {
+            this.orders.add(new Order(input.getLong(), input.getInts(), input.getInt(), input.getInt(),
+                    input.getInt(), input.getInt()));
+        }
+
+        this.history.restoreState(input);
+        getTrainingStore().restoreState(input);
+        for (Layer layer : this.layers) {
+            layer.restoreState(input);
+        }
+    }
+
+    /**
+     * Writes what checkpoint must match to be restored into this model: seed, configuration, products, attributes
+     * and machines
+     */
+    private void writeFingerprint(final StateOutput output) {
+        output.putLong(this.randomStreams.getSeed()).putLong(getConfigurationHash())
+                .putInt(this.parameters.getProductTypesNo())
+                .putInt(getAttributesNo()).putInt(this.layers.size());
+        for (Layer layer : this.layers) {
+            output.putInt(layer.getMachines().size());
+            for (Machine machine : layer.getMachines()) {
+                output.putInt(machine.getId());
+            }
+        }
+    }
+
+    private void checkFingerprint(final StateInput input) throws IOException {
+        boolean matches = input.getLong() == this.randomStreams.getSeed()
+                && input.getLong() == getConfigurationHash()
+                && input.getInt() == this.parameters.getProductTypesNo()
+                && input.getInt() == getAttributesNo()
+                && input.getInt() == this.layers.size();
+        for (int i = 0; matches && i < this.layers.size(); i++) {
+            List<Machine> machines = this.layers.get(i).getMachines();
+            matches = input.getInt() == machines.size();
+            for (int j = 0; matches && j < machines.size(); j++) {
+                matches = input.getInt() == machines.get(j).getId();
+            }
+        }
+        if (!matches) {
+            throw new IOException("Checkpoint was written by different model.");
+        }
+    }
+
+    /**
+     * Returns name of files of this run, made of seed and hash of configuration, so runs of parameter sweep sharing
+     * seed never share files
+     */
+    String getRunName() {
+        return "seed-" + this.randomStreams.getSeed() + "-config-" + String.format("%016x", getConfigurationHash());
+    }
+
+    /** Returns hash of parameters and classifiers of machines, which parameter sweep sets apart from parameters */
+    private long getConfigurationHash() {
+        Hasher hasher = Hashing.murmur3_128().newHasher().putLong(this.parameters.getConfigurationHash());
+        for (Layer layer : this.layers) {
+            for (Machine machine : layer.getMachines()) {
+                hasher.putInt(machine.getId()).putString(machine.getClassifierName(), StandardCharsets.UTF_8);
+            }
+        }
+        return hasher.hash().asLong();
+    }
+
+    /** Method generates new order in given turn. */
+    private Order generateOrder(final int turnNo) {
+        Random random = this.orderRandom;
+        int[] order = new int[parameters.getProductTypesNo()];
         order[random.nextInt(order.length)] = random.nextInt(MAX_ORDER_SIZE - MIN_ORDER_SIZE) + MIN_ORDER_SIZE;
 
-        int reward = Parameters.REWARD != 0 ? Parameters.REWARD : random.nextInt(MAX_REWARD_VALUE);
-        int penalty = Parameters.PENALTY != 0 ? (int) (reward * Parameters.PENALTY) : random.nextInt(reward);
+        int reward = parameters.getReward() != 0 ? parameters.getReward() : random.nextInt(MAX_REWARD_VALUE);
+        int penalty = parameters.getPenalty() != 0 ? (int) (reward * parameters.getPenalty()) : random.nextInt(reward);
 
-        return new Order(order, random.nextInt(DUE_TIME_RAND_MAX) + DUE_TIME_MIN_VALUE, reward, penalty, reward);
+        int dueTurn = turnNo + random.nextInt(DUE_TIME_RAND_MAX) + DUE_TIME_MIN_VALUE;
+        return new Order(this.generatedOrdersNo++, order, dueTurn, reward, penalty, reward);
     }
 
 
@@ -365,38 +1067,83 @@ public class Model implements IEnvironment {
      */
     public class ModelHistory {
 
-        private Queue<AgentState> entries = EvictingQueue.create(Parameters.USED_HISTORY);
+        private Queue<AgentState> entries = EvictingQueue.create(parameters.getUsedHistory());
+
+        /** Random stream used for labels of training examples */
+        private final StreamRandom random = randomStreams.stream(RandomStreams.HISTORY);
 
-        /** Adds entry to {@link #entries} set */
+        /** Adds entry to {@link #entries} set, values are in slots of {@link #schema} */
         public void addEntry() {
-            List<Integer> entry = new ArrayList<>();
-            for (Layer layer : layers) {
-                for (int i = 0; i < Parameters.PRODUCT_TYPES_NO; i++) {
-                    entry.add(layer.getQuantityInBuffer(i));
+            int[] entry = new int[schema.getFeaturesNo()];
+            for (int layerNo = 0; layerNo < layers.size(); layerNo++) {
+                Layer layer = layers.get(layerNo);
+                for (int i = 0; i < parameters.getProductTypesNo(); i++) {
+                    entry[schema.getBufferSlot(layerNo, i)] = layer.getQuantityInBuffer(i);
                 }
-                for (Machine machine : layer.getMachines()) {
-                    entry.add(machine.isBroken() ? 0 : 1);
+                List<Machine> machines = layer.getMachines();
+                for (int machineNo = 0; machineNo < machines.size(); machineNo++) {
+                    entry[schema.getHealthSlot(layerNo, machineNo)] =
+                            schema.getHealthValue(machines.get(machineNo).isBroken());
                 }
             }
-            AgentState state = new AgentState(Model.this);
-            state.setAttrValues(entry);
-            this.entries.add(state);
+            addEntry(entry);
         }
 
-        /** Creates instance of training data based on model history */
-        public Instance getTrainingExample(final int reward) {
-            Instance instance = new SparseInstance(Attributes.size());
+        /** Adds entry of given values in slots of {@link #schema}, array must not be modified afterwards */
+        public void addEntry(final int[] entry) {
+            this.entries.add(new AgentState(Model.this, entry));
+        }
 
-            int attrIdx = 0;
+        /**
+         * Creates instance of training data based on model history. Schema has one slot per feature, so features
+         * are taken from newest entry.
+         */
+        public Instance getTrainingExample(final int reward) {
+            AgentState newest = null;
             for (AgentState entry : this.entries) {
-                for (Integer val : entry.getAttrValues()) {
-                    instance.setValue(attrIdx, val);
+                newest = entry;
+            }
+            int[] entryValues = newest != null ? newest.getAttrValues() : new int[0];
+
+            // only non zero features are stored, so example takes as much memory as active state does
+            int valuesNo = 0;
+            for (int value : entryValues) {
+                if (value != 0) {
+                    valuesNo++;
+                }
+            }
+            double[] values = new double[valuesNo];
+            int[] indices = new int[valuesNo];
+            for (int slot = 0, i = 0; slot < entryValues.length; slot++) {
+                if (entryValues[slot] != 0) {
+                    values[i] = entryValues[slot];
+                    indices[i++] = slot;
                 }
             }
-            instance.setValue((Attribute) Attributes.attributes.lastElement(), String.valueOf(new Random().nextInt(3)));
+
+            Instance instance = new SparseInstance(1.0, values, indices, getAttributesNo());
+            instance.setValue(schema.getClassAttribute(), String.valueOf(this.random.nextInt(3)));
 
             return instance;
         }
 
+        /** Writes entries, oldest first, and random stream */
+        protected void saveState(final StateOutput output) {
+            output.putInt(this.entries.size());
+            for (AgentState entry : this.entries) {
+                output.putInts(entry.getAttrValues());
+            }
+            output.putRandom(this.random);
+        }
+
+        protected void restoreState(final StateInput input) {
+            this.entries.clear();
+            int entriesNo = input.getInt();
+            for (int i = 0; i < entriesNo; i++) {
+                this.entries.add(new AgentState(Model.this, input.getInts()));
+            }
+            input.getRandom(this.random);
+        }
+
     }
 }
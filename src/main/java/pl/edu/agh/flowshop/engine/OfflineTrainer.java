@@ -0,0 +1,177 @@
+package pl.edu.agh.flowshop.engine;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pl.edu.agh.flowshop.utils.ConfigReader;
+import pl.edu.agh.flowshop.utils.Parameters;
+import pl.edu.agh.flowshop.utils.TrajectoryReader;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.SparseInstance;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Trains machines from trajectories recorded by {@link TrajectoryRecorder} as batch job, separately from simulation.
+ * Trajectories are read once, then every machine learns in parallel: supervised ones build classifier from examples
+ * kept by their retention policy, reinforcement learning ones replay their own steps. Learned {@link Policy policies}
+ * are exported, so simulation starts from them through policy files of machines.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+public class OfflineTrainer {
+
+    private final static Logger logger = LogManager.getLogger(OfflineTrainer.class);
+
+    /** Model of trained machines, it is not run */
+    private final Model model;
+
+    /** Number of machines trained at once */
+    private final int threadsNo;
+
+    public OfflineTrainer(final Model model, final int threadsNo) {
+        this.model = model;
+        this.threadsNo = threadsNo;
+    }
+
+    /**
+     * Trains machines from machines.json on trajectories from directories given after first argument, read in given
+     * order, and exports their policies into directory given as first argument. Number of threads is the number of
+     * background training threads.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: OfflineTrainer <policy directory> <trajectory directory>...");
+            return;
+        }
+
+        Parameters parameters = Parameters.load();
+        List<Path> directories = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            directories.add(Paths.get(args[i]));
+        }
+        OfflineTrainer trainer = new OfflineTrainer(ConfigReader.createModel(parameters),
+                parameters.getTrainingThreads());
+        trainer.export(trainer.train(directories), Paths.get(args[0]));
+    }
+
+    /** Trains all machines of model on trajectories from given directories, returns their policies by machine id */
+    public Map<Integer, Policy> train(final List<Path> directories) throws Exception {
+        long start = System.nanoTime();
+        final RetentionPolicy.TrainingInstances examples =
+                new RetentionPolicy.TrainingInstances(this.model.getAttributes(), 0);
+        final Instances header = this.model.getDecisionHeader();
+        final Map<Integer, List<Step>> steps = new HashMap<>();
+        for (Path directory : directories) {
+            new TrajectoryReader(directory, this.model.getSchema().getFeaturesNo()).read(
+                    new TrajectoryReader.Visitor() {
+                        @Override
+                        public void example(final int turnNo, final int[] features, final int label,
+                                            final double reward) {
+                            double[] values = new double[features.length + 1];
+                            for (int i = 0; i < features.length; i++) {
+                                values[i] = features[i];
+                            }
+                            values[features.length] = label;
+                            Instance example = new SparseInstance(1.0, values);
+                            example.setDataset(header);
+                            examples.addWithoutCopy(example);
+                        }
+
+                        @Override
+                        public void step(final int turnNo, final int machineId, final int[] state,
+                                         final int action, final double reward, final int[] nextState) {
+                            List<Step> machineSteps = steps.get(machineId);
+                            if (machineSteps == null) {
+                                machineSteps = new ArrayList<>();
+                                steps.put(machineId, machineSteps);
+                            }
+                            machineSteps.add(new Step(state.clone(), action, reward, nextState.clone()));
+                        }
+                    });
+        }
+        logger.info("Read " + examples.numInstances() + " examples and steps of " + steps.size() + " machines in "
+                + (System.nanoTime() - start) / 1000000 + " ms.");
+
+        ExecutorService executor = Executors.newFixedThreadPool(this.threadsNo,
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("offline-training-%d").build());
+        try {
+            Map<Integer, Future<Policy>> pending = new LinkedHashMap<>();
+            for (Layer layer : this.model.getLayers()) {
+                for (final Machine machine : layer.getMachines()) {
+                    List<Step> machineSteps = steps.remove(machine.getId());
+                    final List<Step> replayed = machineSteps != null ? machineSteps : Collections.<Step>emptyList();
+                    pending.put(machine.getId(), executor.submit(new Callable<Policy>() {
+                        @Override
+                        public Policy call() throws Exception {
+                            return machine.learnOffline(examples, replayed);
+                        }
+                    }));
+                }
+            }
+            if (!steps.isEmpty()) {
+                logger.warn("Steps of machines " + steps.keySet() + " ignored, model has no such machines.");
+            }
+
+            Map<Integer, Policy> result = new LinkedHashMap<>();
+            for (Map.Entry<Integer, Future<Policy>> entry : pending.entrySet()) {
+                try {
+                    result.put(entry.getKey(), entry.getValue().get());
+                } catch (ExecutionException e) {
+                    throw new Exception("Offline training of machine " + entry.getKey() + " failed.", e.getCause());
+                }
+            }
+            logger.info("Trained " + result.size() + " machines in " + (System.nanoTime() - start) / 1000000
+                    + " ms.");
+            return result;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Writes policies into given directory, named by {@link Policy#getFileName(String, int)} after run of model, to be
+     * set as policy files of machines
+     */
+    public void export(final Map<Integer, Policy> policies, final Path directory) throws Exception {
+        Files.createDirectories(directory);
+        for (Map.Entry<Integer, Policy> entry : policies.entrySet()) {
+            entry.getValue().write(directory.resolve(Policy.getFileName(this.model.getRunName(), entry.getKey())));
+        }
+        logger.info("Policies of " + policies.size() + " machines exported to " + directory);
+    }
+
+    /** Recorded step of reinforcement learning agent, states are features values */
+    static final class Step {
+
+        final int[] state;
+
+        final int action;
+
+        final double reward;
+
+        final int[] nextState;
+
+        Step(final int[] state, final int action, final double reward, final int[] nextState) {
+            this.state = state;
+            this.action = action;
+            this.reward = reward;
+            this.nextState = nextState;
+        }
+    }
+}
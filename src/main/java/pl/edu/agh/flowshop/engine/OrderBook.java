@@ -0,0 +1,134 @@
+package pl.edu.agh.flowshop.engine;
+
+import pl.edu.agh.flowshop.entity.Order;
+import pl.edu.agh.flowshop.utils.OrderComparator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Book of open orders.
+ * </br>
+ * Every order is indexed by its key product (first product it demands) and demanded quantity of that product, and
+ * orders with same key are kept in {@link OrderComparator} order. Order can be completed only if there is enough of
+ * its key product in stock, so delivery looks only at orders which key quantity does not exceed stock, instead of
+ * scanning all open orders. Orders keep absolute due turns, so open orders are not touched between deliveries.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+public class OrderBook {
+
+    /** Order of delivery */
+    private final OrderComparator comparator = new OrderComparator();
+
+    /** For every product: open orders keyed by that product, grouped by demanded quantity */
+    private final List<NavigableMap<Integer, NavigableSet<Order>>> byProduct;
+
+    /** Number of open orders */
+    private int size;
+
+    public OrderBook(final int productTypesNo) {
+        this.byProduct = new ArrayList<>(productTypesNo);
+        for (int i = 0; i < productTypesNo; i++) {
+            this.byProduct.add(new TreeMap<Integer, NavigableSet<Order>>());
+        }
+    }
+
+    /** Adds open order */
+    public void add(final Order order) {
+        int product = getKeyProduct(order);
+        int quantity = order.getProductsList()[product];
+        NavigableSet<Order> orders = this.byProduct.get(product).get(quantity);
+        if (orders == null) {
+            orders = new TreeSet<>(this.comparator);
+            this.byProduct.get(product).put(quantity, orders);
+        }
+        orders.add(order);
+        this.size++;
+    }
+
+    /**
+     * Removes first order, according to {@link OrderComparator}, which can be completed with products in given stock.
+     * Stock is not modified.
+     *
+     * @return removed order or null if no order can be completed
+     */
+    public Order pollDeliverable(final int[] stock) {
+        Order result = null;
+        for (int product = 0; product < this.byProduct.size(); product++) {
+            if (stock[product] <= 0) {
+                continue;
+            }
+            for (NavigableSet<Order> orders : this.byProduct.get(product).headMap(stock[product], true).values()) {
+                for (Order order : orders) {
+                    if (result != null && this.comparator.compare(order, result) >= 0) {
+                        // rest of group comes after current result
+                        break;
+                    }
+                    if (canComplete(order, stock)) {
+                        result = order;
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (result != null) {
+            remove(result);
+        }
+        return result;
+    }
+
+    /** Returns number of open orders */
+    public int size() {
+        return this.size;
+    }
+
+    /** Returns all open orders, grouped by key product */
+    public List<Order> getOrders() {
+        List<Order> result = new ArrayList<>(this.size);
+        for (NavigableMap<Integer, NavigableSet<Order>> orders : this.byProduct) {
+            for (NavigableSet<Order> group : orders.values()) {
+                result.addAll(group);
+            }
+        }
+        return result;
+    }
+
+    private void remove(final Order order) {
+        int product = getKeyProduct(order);
+        int quantity = order.getProductsList()[product];
+        NavigableSet<Order> orders = this.byProduct.get(product).get(quantity);
+        orders.remove(order);
+        if (orders.isEmpty()) {
+            this.byProduct.get(product).remove(quantity);
+        }
+        this.size--;
+    }
+
+    private static boolean canComplete(final Order order, final int[] stock) {
+        int[] demandedProducts = order.getProductsList();
+        for (int i = 0; i < demandedProducts.length; i++) {
+            if (demandedProducts[i] > stock[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Returns first product demanded by order */
+    private static int getKeyProduct(final Order order) {
+        int[] demandedProducts = order.getProductsList();
+        for (int i = 0; i < demandedProducts.length; i++) {
+            if (demandedProducts[i] > 0) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Order does not demand any product: " + order);
+    }
+}
@@ -0,0 +1,355 @@
+package pl.edu.agh.flowshop.engine;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pl.edu.agh.flowshop.utils.ConfigReader;
+import pl.edu.agh.flowshop.utils.MetricsSink;
+import pl.edu.agh.flowshop.utils.Parameters;
+import pl.edu.agh.flowshop.utils.RandomStreams;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs experiment for every combination of swept values and writes one results table.
+ * </br>
+ * Sweep definition is a properties file, where every key is either {@link #CLASSIFIER_KEY} or a key from
+ * flowshop.properties, and value is comma separated list of values (<code>J48,JRip</code>) or a range in form
+ * <code>start:stop:step</code> (<code>0.1:0.9:0.2</code>). Keys not present in sweep keep values from
+ * flowshop.properties. All runs are spread over fixed size thread pool.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+public class ParameterSweep {
+
+    /** Sweep key overriding classifier of all machines from machines.json */
+    public static final String CLASSIFIER_KEY = "classifierName";
+
+    /** Keys written first in results table, in this order, other swept keys follow alphabetically */
+    private static final List<String> ORDERED_KEYS = Arrays.asList(CLASSIFIER_KEY, "LEARNING_TURN", "LAMBDA", "EPSILON",
+            "GAMMA", "USED_HISTORY", "REWARD", "PENALTY");
+
+    /** Separator of values list */
+    private static final String LIST_SEPARATOR = ",";
+
+    /** Separator of range bounds */
+    private static final String RANGE_SEPARATOR = ":";
+
+    private final static Logger logger = LogManager.getLogger(ParameterSweep.class);
+
+    /** Swept keys with their values, in order of results table columns */
+    private final Map<String, List<String>> grid;
+
+    /** Base configuration, overridden by swept values */
+    private final Properties baseConfiguration;
+
+    /** Number of replications of each configuration */
+    private final int replications;
+
+    /** Size of thread pool */
+    private final int threads;
+
+    /** Random streams of sweep, seeds of replications are split from them */
+    private final RandomStreams randomStreams;
+
+    public ParameterSweep(final Properties sweepDefinition, final Properties baseConfiguration, final int replications,
+                          final int threads) {
+        if (replications < 1 || threads < 1) {
+            throw new IllegalArgumentException("Replications and threads number must be positive.");
+        }
+        this.grid = parseGrid(sweepDefinition);
+        this.baseConfiguration = baseConfiguration;
+        this.replications = replications;
+        this.threads = threads;
+        this.randomStreams = new RandomStreams(new Parameters(baseConfiguration).getSeed());
+    }
+
+    /** Reads sweep definition from given path, falls back to resources directory if there is no such file */
+    public static Properties readDefinition(final Path path) throws IOException {
+        Properties definition = new Properties();
+        if (Files.exists(path)) {
+            try (InputStream stream = Files.newInputStream(path)) {
+                definition.load(stream);
+            }
+        } else {
+            InputStream stream = ParameterSweep.class.getClassLoader().getResourceAsStream(path.toString());
+            if (stream == null) {
+                throw new IOException("Sweep definition not found: " + path);
+            }
+            try (InputStream resource = stream) {
+                definition.load(resource);
+            }
+        }
+        return definition;
+    }
+
+    /** Returns all configurations of sweep, each as map from key to its value */
+    public List<Map<String, String>> getConfigurations() {
+        List<Map<String, String>> result = new ArrayList<>();
+        result.add(new LinkedHashMap<String, String>());
+        for (Map.Entry<String, List<String>> entry : grid.entrySet()) {
+            List<Map<String, String>> extended = new ArrayList<>(result.size() * entry.getValue().size());
+            for (Map<String, String> configuration : result) {
+                for (String value : entry.getValue()) {
+                    Map<String, String> copy = new LinkedHashMap<>(configuration);
+                    copy.put(entry.getKey(), value);
+                    extended.add(copy);
+                }
+            }
+            result = extended;
+        }
+        return result;
+    }
+
+    /**
+     * Runs whole sweep and writes results table in CSV format
+     *
+     * @param output results destination
+     */
+    public void run(final Path output) throws Exception {
+        List<Map<String, String>> configurations = getConfigurations();
+        logger.info("Sweep of " + configurations.size() + " configurations, " + replications + " replications each.");
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<List<Future<RunStatistics>>> futures = new ArrayList<>(configurations.size());
+            for (Map<String, String> configuration : configurations) {
+                List<Future<RunStatistics>> runs = new ArrayList<>(replications);
+                for (int i = 0; i < replications; i++) {
+                    runs.add(executor.submit(createRun(configuration, i)));
+                }
+                futures.add(runs);
+            }
+
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(output),
+                    StandardCharsets.UTF_8))) {
+                writeHeader(writer);
+                for (int i = 0; i < configurations.size(); i++) {
+                    List<RunStatistics> runs = new ArrayList<>(replications);
+                    for (Future<RunStatistics> future : futures.get(i)) {
+                        try {
+                            runs.add(future.get());
+                        } catch (ExecutionException e) {
+                            throw new Exception("Sweep run failed for " + configurations.get(i), e.getCause());
+                        }
+                    }
+                    writeRow(writer, configurations.get(i), runs);
+                    writer.flush();
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Creates task running one replication of given configuration. Replications with same number use same seed in
+     * every configuration, so configurations are compared on common random numbers.
+     */
+    private Callable<RunStatistics> createRun(final Map<String, String> configuration, final int replicationNo) {
+        Properties properties = new Properties();
+        properties.putAll(baseConfiguration);
+        String classifierName = null;
+        for (Map.Entry<String, String> entry : configuration.entrySet()) {
+            if (CLASSIFIER_KEY.equals(entry.getKey())) {
+                classifierName = entry.getValue();
+            } else {
+                properties.setProperty(entry.getKey(), entry.getValue());
+            }
+        }
+
+        final Parameters parameters = new Parameters(properties);
+        final String classifier = classifierName;
+        final long seed = randomStreams.split(RandomStreams.REPLICATIONS, replicationNo).getSeed();
+        return new Callable<RunStatistics>() {
+            @Override
+            public RunStatistics call() throws Exception {
+                long start = System.nanoTime();
+                Model model = ConfigReader.createModel(parameters, classifier, seed);
+                RunStatistics statistics = new RunStatistics();
+                model.run(statistics);
+                statistics.finish(model.getFinishedOrdersNo(), parameters.getTurnLimit(), System.nanoTime() - start);
+                return statistics;
+            }
+        };
+    }
+
+    private void writeHeader(final Writer writer) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (String key : grid.keySet()) {
+            sb.append(key).append(LIST_SEPARATOR);
+        }
+        sb.append("replications,throughput_mean,throughput_std,queue_mean,queue_std,queue_max,")
+                .append("wall_ms_mean,wall_ms_total\n");
+        writer.write(sb.toString());
+    }
+
+    private void writeRow(final Writer writer, final Map<String, String> configuration,
+                          final List<RunStatistics> runs) throws IOException {
+        double[] throughput = new double[runs.size()];
+        double[] queueMean = new double[runs.size()];
+        double queueSquares = 0;
+        double queueMax = 0;
+        double wallMillis = 0;
+        for (int i = 0; i < runs.size(); i++) {
+            RunStatistics run = runs.get(i);
+            throughput[i] = run.throughput;
+            queueMean[i] = run.queueMean;
+            queueSquares += run.queueSquaresMean;
+            queueMax = Math.max(queueMax, run.queueMax);
+            wallMillis += run.wallNanos / 1e6;
+        }
+        double overallQueueMean = mean(queueMean);
+        double overallQueueStd = Math.sqrt(Math.max(queueSquares / runs.size() - overallQueueMean * overallQueueMean, 0));
+
+        StringBuilder sb = new StringBuilder();
+        for (String value : configuration.values()) {
+            sb.append(value).append(LIST_SEPARATOR);
+        }
+        sb.append(runs.size()).append(LIST_SEPARATOR)
+                .append(mean(throughput)).append(LIST_SEPARATOR)
+                .append(std(throughput)).append(LIST_SEPARATOR)
+                .append(overallQueueMean).append(LIST_SEPARATOR)
+                .append(overallQueueStd).append(LIST_SEPARATOR)
+                .append(queueMax).append(LIST_SEPARATOR)
+                .append(wallMillis / runs.size()).append(LIST_SEPARATOR)
+                .append(wallMillis).append("\n");
+        writer.write(sb.toString());
+        logger.info("Configuration " + configuration + " finished, wall time " + wallMillis + " ms.");
+    }
+
+    /** Parses sweep definition into grid of values, keys ordered by {@link #ORDERED_KEYS} */
+    private static Map<String, List<String>> parseGrid(final Properties definition) {
+        List<String> keys = new ArrayList<>();
+        for (String key : ORDERED_KEYS) {
+            if (definition.containsKey(key)) {
+                keys.add(key);
+            }
+        }
+        List<String> otherKeys = new ArrayList<>();
+        for (String key : definition.stringPropertyNames()) {
+            if (!ORDERED_KEYS.contains(key)) {
+                otherKeys.add(key);
+            }
+        }
+        Collections.sort(otherKeys);
+        keys.addAll(otherKeys);
+
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        for (String key : keys) {
+            result.put(key, parseValues(definition.getProperty(key).trim()));
+        }
+        return result;
+    }
+
+    /** Parses list of values or range of values */
+    private static List<String> parseValues(final String definition) {
+        List<String> result = new ArrayList<>();
+        if (definition.contains(RANGE_SEPARATOR)) {
+            String[] bounds = definition.split(RANGE_SEPARATOR);
+            if (bounds.length != 3) {
+                throw new IllegalArgumentException("Range must be in form start:stop:step, got: " + definition);
+            }
+            BigDecimal start = new BigDecimal(bounds[0].trim());
+            BigDecimal stop = new BigDecimal(bounds[1].trim());
+            BigDecimal step = new BigDecimal(bounds[2].trim());
+            if (step.signum() <= 0) {
+                throw new IllegalArgumentException("Range step must be positive, got: " + definition);
+            }
+            for (BigDecimal value = start; value.compareTo(stop) <= 0; value = value.add(step)) {
+                result.add(value.toPlainString());
+            }
+        } else {
+            for (String value : definition.split(LIST_SEPARATOR)) {
+                if (!value.trim().isEmpty()) {
+                    result.add(value.trim());
+                }
+            }
+        }
+        return result;
+    }
+
+    private static double mean(final double[] values) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        return values.length > 0 ? sum / values.length : 0;
+    }
+
+    private static double std(final double[] values) {
+        if (values.length < 2) {
+            return 0;
+        }
+        double mean = mean(values);
+        double squares = 0;
+        for (double value : values) {
+            squares += (value - mean) * (value - mean);
+        }
+        return Math.sqrt(squares / (values.length - 1));
+    }
+
+    /** Statistics of one run, counted while model runs, so series of queue sizes is never kept */
+    private static class RunStatistics implements MetricsSink {
+
+        private double queueSum;
+
+        private double queueSquaresSum;
+
+        private int turnsNo;
+
+        /** Delivered orders per turn */
+        private double throughput;
+
+        private double queueMean;
+
+        /** Mean of squared queue sizes, used to combine deviation over replications */
+        private double queueSquaresMean;
+
+        private double queueMax;
+
+        private long wallNanos;
+
+        @Override
+        public void accept(final int turnNo, final double queueSize, final int finishedOrders) {
+            this.queueSum += queueSize;
+            this.queueSquaresSum += queueSize * queueSize;
+            this.queueMax = Math.max(this.queueMax, queueSize);
+            this.turnsNo++;
+        }
+
+        @Override
+        public void close() {
+            // nothing to release
+        }
+
+        /** Counts final statistics when run ends */
+        private void finish(final int finishedOrders, final int turns, final long wallNanos) {
+            int n = Math.max(this.turnsNo, 1);
+            this.throughput = turns > 0 ? (double) finishedOrders / turns : 0;
+            this.queueMean = this.queueSum / n;
+            this.queueSquaresMean = this.queueSquaresSum / n;
+            this.wallNanos = wallNanos;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package pl.edu.agh.flowshop.engine;
+
+import pl.edu.agh.flowshop.utils.LatencyHistogram;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Times phases of {@link Model} main loop and decisions of classifiers in {@link LatencyHistogram}s.
+ * </br>
+ * Phase is timed with {@link #start()} and {@link #stop(LatencyHistogram, long)}. Disabled timers do not read clock
+ * and do not record anything, so instrumentation costs single field check. Enabled timers can be read live through
+ * JMX, see {@link PhaseTimersMBean}, while model runs.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+public class PhaseTimers implements PhaseTimersMBean {
+
+    /** Domain of registered MBeans */
+    public static final String JMX_DOMAIN = "pl.edu.agh.flowshop";
+
+    /** Training of classifiers in learning turn */
+    public static final String LEARNING = "learning";
+
+    /** Generation of new order */
+    public static final String ORDER_GENERATION = "order_generation";
+
+    /** Decisions of machines of one layer */
+    public static final String DECISIONS = "decisions";
+
+    /** Ticks of machines of one layer */
+    public static final String MACHINE_TICKS = "machine_ticks";
+
+    /** Delivery of finished orders */
+    public static final String DELIVERY = "delivery";
+
+    /** Whole simulated turn */
+    public static final String TURN = "turn";
+
+    /** Capture of checkpoint, main loop stall only, checkpoint is written in background */
+    public static final String CHECKPOINT = "checkpoint";
+
+    /** Prefix of phases timing decisions of classifiers, followed by classifier name */
+    public static final String ACTION_PREFIX = "get_action_";
+
+    /** Percentiles shown in report */
+    private static final double[] REPORT_PERCENTILES = {50, 90, 99, 99.9};
+
+    /** Number of registered timers, used for unique MBean names */
+    private static final AtomicInteger registeredNo = new AtomicInteger();
+
+    private final boolean enabled;
+
+    /** Histograms of phases, sorted by name */
+    private final ConcurrentMap<String, LatencyHistogram> histograms = new ConcurrentSkipListMap<>();
+
+    private final LatencyHistogram learning;
+
+    private final LatencyHistogram orderGeneration;
+
+    private final LatencyHistogram decisions;
+
+    private final LatencyHistogram machineTicks;
+
+    private final LatencyHistogram delivery;
+
+    private final LatencyHistogram turn;
+
+    private final LatencyHistogram checkpoint;
+
+    /** Name under which timers are registered, null if they are not */
+    private ObjectName objectName;
+
+    public PhaseTimers(final boolean enabled) {
+        this.enabled = enabled;
+        this.learning = getHistogram(LEARNING);
+        this.orderGeneration = getHistogram(ORDER_GENERATION);
+        this.decisions = getHistogram(DECISIONS);
+        this.machineTicks = getHistogram(MACHINE_TICKS);
+        this.delivery = getHistogram(DELIVERY);
+        this.turn = getHistogram(TURN);
+        this.checkpoint = getHistogram(CHECKPOINT);
+    }
+
+    /** Returns true if phases are timed */
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /** Returns start time of phase, 0 if timers are disabled */
+    public long start() {
+        return this.enabled ? System.nanoTime() : 0;
+    }
+
+    /** Records time of phase started at given time */
+    public void stop(final LatencyHistogram histogram, final long startTime) {
+        if (this.enabled) {
+            histogram.record(System.nanoTime() - startTime);
+        }
+    }
+
+    /** Returns histogram of given phase, creating it if needed */
+    public LatencyHistogram getHistogram(final String phase) {
+        LatencyHistogram histogram = this.histograms.get(phase);
+        if (histogram == null) {
+            LatencyHistogram created = new LatencyHistogram();
+            histogram = this.histograms.putIfAbsent(phase, created);
+            if (histogram == null) {
+                histogram = created;
+            }
+        }
+        return histogram;
+    }
+
+    /** Returns histogram of decisions of given classifier */
+    public LatencyHistogram getActionHistogram(final String classifierName) {
+        return getHistogram(ACTION_PREFIX + classifierName);
+    }
+
+    public LatencyHistogram getLearning() {
+        return learning;
+    }
+
+    public LatencyHistogram getOrderGeneration() {
+        return orderGeneration;
+    }
+
+    public LatencyHistogram getDecisions() {
+        return decisions;
+    }
+
+    public LatencyHistogram getMachineTicks() {
+        return machineTicks;
+    }
+
+    public LatencyHistogram getDelivery() {
+        return delivery;
+    }
+
+    public LatencyHistogram getTurn() {
+        return turn;
+    }
+
+    public LatencyHistogram getCheckpoint() {
+        return checkpoint;
+    }
+
+    /** Registers timers in platform MBean server under name unique within JVM, does nothing if timers are disabled */
+    public void register(final String name) {
+        if (!this.enabled || this.objectName != null) {
+            return;
+        }
+        try {
+            this.objectName = new ObjectName(JMX_DOMAIN + ":type=PhaseTimers,name="
+                    + ObjectName.quote(name + "-" + registeredNo.incrementAndGet()));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, this.objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register phase timers " + name, e);
+        }
+    }
+
+    /** Unregisters timers from platform MBean server, if they were registered */
+    public void unregister() {
+        if (this.objectName == null) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(this.objectName)) {
+                server.unregisterMBean(this.objectName);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not unregister phase timers " + this.objectName, e);
+        } finally {
+            this.objectName = null;
+        }
+    }
+
+    @Override
+    public String[] getPhases() {
+        return this.histograms.keySet().toArray(new String[0]);
+    }
+
+    @Override
+    public long getCount(final String phase) {
+        return getExisting(phase).getCount();
+    }
+
+    @Override
+    public double getMean(final String phase) {
+        return toMicros(getExisting(phase).getMean());
+    }
+
+    @Override
+    public double getPercentile(final String phase, final double percentile) {
+        return toMicros(getExisting(phase).getPercentile(percentile));
+    }
+
+    @Override
+    public double getMax(final String phase) {
+        return toMicros(getExisting(phase).getMax());
+    }
+
+    @Override
+    public String getReport() {
+        StringBuilder result = new StringBuilder(String.format("%-24s %10s %12s %12s", "phase [us]", "count", "total",
+                "mean"));
+        for (double percentile : REPORT_PERCENTILES) {
+            result.append(String.format(" %10s", "p" + formatPercentile(percentile)));
+        }
+        result.append(String.format(" %10s", "max"));
+
+        for (Map.Entry<String, LatencyHistogram> entry : this.histograms.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            result.append(String.format("%n%-24s %10d %12.0f %12.2f", entry.getKey(), histogram.getCount(),
+                    toMicros(histogram.getSum()), toMicros(histogram.getMean())));
+            for (double percentile : REPORT_PERCENTILES) {
+                result.append(String.format(" %10.2f", toMicros(histogram.getPercentile(percentile))));
+            }
+            result.append(String.format(" %10.2f", toMicros(histogram.getMax())));
+        }
+        return result.toString();
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram histogram : this.histograms.values()) {
+            histogram.reset();
+        }
+    }
+
+    private LatencyHistogram getExisting(final String phase) {
+        LatencyHistogram histogram = this.histograms.get(phase);
+        if (histogram == null) {
+            throw new IllegalArgumentException("Unknown phase: " + phase);
+        }
+        return histogram;
+    }
+
+    private static double toMicros(final double nanos) {
+        return nanos / 1000;
+    }
+
+    private static String formatPercentile(final double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+    }
+}
@@ -0,0 +1,31 @@
+package pl.edu.agh.flowshop.engine;
+
+/**
+ * JMX view of {@link PhaseTimers}, all times are in microseconds.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+public interface PhaseTimersMBean {
+
+    /** Returns names of timed phases, including decision phases of classifiers */
+    String[] getPhases();
+
+    /** Returns number of timed executions of phase */
+    long getCount(String phase);
+
+    /** Returns mean time of phase */
+    double getMean(String phase);
+
+    /** Returns given percentile (0 to 100) of phase times */
+    double getPercentile(String phase, double percentile);
+
+    /** Returns longest time of phase */
+    double getMax(String phase);
+
+    /** Returns table with statistics of all phases */
+    String getReport();
+
+    /** Clears collected times */
+    void reset();
+}
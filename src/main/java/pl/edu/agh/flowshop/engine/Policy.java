@@ -0,0 +1,187 @@
+package pl.edu.agh.flowshop.engine;
+
+import pl.edu.agh.flowshop.utils.AttributeSchema;
+import pl.edu.agh.flowshop.utils.StateInput;
+import pl.edu.agh.flowshop.utils.StateOutput;
+import weka.classifiers.Classifier;
+import weka.core.Instance;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Policy learned by agent, exported at end of run and loaded into agent at start of another one, so it does not
+ * have to learn from scratch, see {@link LearningAgent#getPolicy()}.
+ * </br>
+ * Supervised policy consists of classifier and examples it was built from, so rebuilt classifiers still know them.
+ * Reinforcement learning policy consists of Q-values. Policy keeps signature of {@link AttributeSchema} it was learned
+ * with and can be used only by agent of the same classifier in model of the same signature.
+ * </br>
+ * Policy file starts with header: magic and format version, followed by policy written with {@link StateOutput}.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+public class Policy {
+
+    /** Value marking policy files */
+    public static final int MAGIC = 0x464C504F;
+
+    /** Version of file format */
+    public static final int VERSION = 1;
+
+    /** Suffix of policy files */
+    public static final String SUFFIX = ".policy";
+
+    /** Suffix of policy being written */
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    /** Size of file header in bytes */
+    private static final int HEADER_SIZE = 8;
+
+    private final String classifierName;
+
+    /** Signature of schema policy was learned with, see {@link AttributeSchema#getSignature()} */
+    private final String[] signature;
+
+    /** Classifier, null for reinforcement learning policy */
+    private final Classifier classifier;
+
+    /** Examples classifier was built from, oldest first, empty for updateable classifiers */
+    private final Instance[] examples;
+
+    /** Q-values, null for supervised policy */
+    private final QTable qTable;
+
+    /** Creates supervised policy */
+    public Policy(final String classifierName, final AttributeSchema schema, final Classifier classifier,
+                  final Instance[] examples) {
+        this(classifierName, schema.getSignature(), classifier, examples, null);
+    }
+
+    /** Creates reinforcement learning policy */
+    public Policy(final String classifierName, final AttributeSchema schema, final QTable qTable) {
+        this(classifierName, schema.getSignature(), null, new Instance[0], qTable);
+    }
+
+    private Policy(final String classifierName, final String[] signature, final Classifier classifier,
+                   final Instance[] examples, final QTable qTable) {
+        this.classifierName = classifierName;
+        this.signature = signature;
+        this.classifier = classifier;
+        this.examples = examples;
+        this.qTable = qTable;
+    }
+
+    public String getClassifierName() {
+        return this.classifierName;
+    }
+
+    public Classifier getClassifier() {
+        return this.classifier;
+    }
+
+    public Instance[] getExamples() {
+        return this.examples;
+    }
+
+    public QTable getQTable() {
+        return this.qTable;
+    }
+
+    /**
+     * Checks if policy can be used by agent of given classifier in model of given schema
+     *
+     * @throws IllegalArgumentException if it can not
+     */
+    public void checkCompatible(final String classifierName, final AttributeSchema schema) {
+        if (!this.classifierName.equals(classifierName)) {
+            throw new IllegalArgumentException("Policy of " + this.classifierName + " can not be used by "
+                    + classifierName);
+        }
+        if (!Arrays.equals(this.signature, schema.getSignature())) {
+            throw new IllegalArgumentException("Policy was learned with attributes " + Arrays.toString(this.signature)
+                    + ", model has " + Arrays.toString(schema.getSignature()));
+        }
+    }
+
+    /**
+     * Writes policy to file, replacing existing one. Policy is written into temporary file first, which then replaces
+     * file, so crash or another run writing the same file never leaves it truncated.
+     */
+    public void write(final Path path) throws IOException {
+        StateOutput output = new StateOutput();
+        output.putString(this.classifierName);
+        output.putInt(this.signature.length);
+        for (String attribute : this.signature) {
+            output.putString(attribute);
+        }
+        output.putObject(this.classifier).putObject(this.examples).putObject(this.qTable);
+
+        // temporary file is unique, so concurrent writers of the same policy do not share it
+        Path temporary = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(),
+                TEMPORARY_SUFFIX);
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(VERSION).flip();
+                while (header.hasRemaining()) {
+                    channel.write(header);
+                }
+                output.writeTo(channel);
+                channel.force(true);
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Returns name of policy file of machine, the same for policies exported at end of run and learned offline
+     *
+     * @param runName name of run policy comes from, see {@link Model#getRunName()}
+     */
+    public static String getFileName(final String runName, final int machineId) {
+        return runName + "-machine-" + machineId + SUFFIX;
+    }
+
+    /** Reads policy from file */
+    public static Policy read(final Path path) throws IOException {
+        if (!Files.isRegularFile(path)) {
+            throw new IOException("No policy file: " + path);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    throw new IOException("Not a policy file: " + path);
+                }
+            }
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a policy file: " + path);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported policy version " + version + ": " + path);
+            }
+
+            StateInput input = StateInput.read(channel);
+            String classifierName = input.getString();
+            String[] signature = new String[input.getInt()];
+            for (int i = 0; i < signature.length; i++) {
+                signature[i] = input.getString();
+            }
+            return new Policy(classifierName, signature, (Classifier) input.getObject(),
+                    (Instance[]) input.getObject(), (QTable) input.getObject());
+        }
+    }
+}
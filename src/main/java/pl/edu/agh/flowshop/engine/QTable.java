@@ -0,0 +1,301 @@
+package pl.edu.agh.flowshop.engine;
+
+import dataset.Dataset;
+import dataset.Sample;
+import environment.IAction;
+import environment.IState;
+import pl.edu.agh.flowshop.entity.Action;
+import pl.edu.agh.flowshop.entity.AgentState;
+import qlearning.IRewardStore;
+
+/**
+ * Q-values of reinforcement learning agents, replacing piqle {@link qlearning.RewardMemorizer} which keeps them in
+ * {@link java.util.HashMap} keyed by objects wrapping state and action.
+ * </br>
+ * Table uses open addressing with linear probing over states, all kept in single long array. Slot of state holds its
+ * hash, attributes values packed into fixed number of words, 16 bits per value, or 32 bits per value once any value
+ * does not fit into 16 bits, and Q-values of all actions, indexed by product to process. Lookups and updates do not
+ * allocate and touch one place in memory. Selectors read and write values of the same state object several times in
+ * a row, so slot of last looked up state is remembered. Values of actions which were never updated are 0, as with
+ * default value chooser of piqle.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+public class QTable implements IRewardStore {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Initial number of state slots, power of two */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /** Table grows when more than this part of slots is used */
+    private static final double MAX_LOAD = 0.5;
+
+    /** Bits per value until value which does not fit appears */
+    private static final int NARROW_BITS = 16;
+
+    /** Bits per value enough for every int */
+    private static final int WIDE_BITS = 32;
+
+    /** Bit marking used slot in first word of slot, next to state hash */
+    private static final long USED = 1L << 32;
+
+    /** Number of attributes values of state */
+    private final int stateWidth;
+
+    /** Number of actions of every state */
+    private final int actionsNo;
+
+    /** Bits used by every packed value */
+    private int bitsPerValue;
+
+    /** Number of words of packed state */
+    private int wordsPerState;
+
+    /** Number of words of slot: header, packed state and Q-values */
+    private int slotSize;
+
+    /** Number of slots, power of two */
+    private int capacity;
+
+    /** Slots of states */
+    private long[] table;
+
+    /** Number of stored states */
+    private int size;
+
+    /** Packed state being looked up */
+    private long[] packed;
+
+    /** Attributes values of last found state, arrays of states are never modified so identity is enough */
+    private transient int[] lastAttrValues;
+
+    /** Offset of slot of {@link #lastAttrValues} */
+    private transient int lastOffset;
+
+    public QTable(final int stateWidth, final int actionsNo) {
+        this.stateWidth = stateWidth;
+        this.actionsNo = actionsNo;
+        rebuild(INITIAL_CAPACITY, NARROW_BITS);
+    }
+
+    /** Creates independent copy of given table */
+    private QTable(final QTable source) {
+        this.stateWidth = source.stateWidth;
+        this.actionsNo = source.actionsNo;
+        this.bitsPerValue = source.bitsPerValue;
+        this.wordsPerState = source.wordsPerState;
+        this.slotSize = source.slotSize;
+        this.capacity = source.capacity;
+        this.table = source.table.clone();
+        this.size = source.size;
+        this.packed = new long[source.wordsPerState];
+    }
+
+    /** Returns independent copy of this table, made with single array copy */
+    public QTable copy() {
+        return new QTable(this);
+    }
+
+    @Override
+    public double get(final IState state, final IAction action) {
+        if (state == null || action == null) {
+            return 0;
+        }
+        int offset = find(getAttrValues(state), state.hashCode());
+        return offset < 0 ? 0 : Double.longBitsToDouble(this.table[getValueIndex(offset, action)]);
+    }
+
+    @Override
+    public void put(final IState state, final IAction action, final IState nextState, final double value) {
+        int[] attrValues = getAttrValues(state);
+        int hash = state.hashCode();
+        int offset = find(attrValues, hash);
+        if (offset < 0) {
+            if (this.size + 1 > this.capacity * MAX_LOAD) {
+                rebuild(this.capacity * 2, this.bitsPerValue);
+                offset = find(attrValues, hash);
+            }
+            offset = -offset - 1;
+            insert(offset, hash, this.packed);
+            this.lastAttrValues = attrValues;
+            this.lastOffset = offset;
+        }
+        this.table[getValueIndex(offset, action)] = Double.doubleToRawLongBits(value);
+    }
+
+    /** Returns dataset with one sample per stored state and action: attributes values followed by action, and value */
+    @Override
+    public Dataset extractDataset() {
+        Dataset result = new Dataset();
+        for (int offset = 0; offset < this.table.length; offset += this.slotSize) {
+            if (this.table[offset] == 0) {
+                continue;
+            }
+            for (int action = 0; action < this.actionsNo; action++) {
+                double[] inputs = new double[this.stateWidth + 1];
+                for (int i = 0; i < this.stateWidth; i++) {
+                    inputs[i] = unpack(this.table, offset + 1, i, this.bitsPerValue);
+                }
+                inputs[this.stateWidth] = action;
+                double value = Double.longBitsToDouble(this.table[offset + 1 + this.wordsPerState + action]);
+                // same scaling as in RewardMemorizer
+                result.add(new Sample(inputs, new double[]{(1 + value) / 2}));
+            }
+        }
+        return result;
+    }
+
+    /** Returns number of stored states */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Looks for slot of state, leaves state packed in {@link #packed}
+     *
+     * @return offset of slot of state, or -(offset of free slot + 1) where state would be inserted if it is not stored
+     */
+    private int find(final int[] attrValues, final int hash) {
+        if (attrValues == this.lastAttrValues) {
+            return this.lastOffset;
+        }
+        if (!pack(attrValues, this.packed, this.bitsPerValue)) {
+            rebuild(this.capacity, WIDE_BITS);
+            pack(attrValues, this.packed, this.bitsPerValue);
+        }
+
+        long header = (hash & 0xFFFFFFFFL) | USED;
+        int mask = this.capacity - 1;
+        int slot = mix(hash) & mask;
+        while (true) {
+            int offset = slot * this.slotSize;
+            long slotHeader = this.table[offset];
+            if (slotHeader == 0) {
+                return -offset - 1;
+            }
+            if (slotHeader == header && keyEquals(offset)) {
+                this.lastAttrValues = attrValues;
+                this.lastOffset = offset;
+                return offset;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /** Writes header and packed state into free slot */
+    private void insert(final int offset, final int hash, final long[] key) {
+        this.table[offset] = (hash & 0xFFFFFFFFL) | USED;
+        System.arraycopy(key, 0, this.table, offset + 1, this.wordsPerState);
+        this.size++;
+    }
+
+    private boolean keyEquals(final int offset) {
+        for (int i = 0; i < this.wordsPerState; i++) {
+            if (this.table[offset + 1 + i] != this.packed[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int getValueIndex(final int offset, final IAction action) {
+        int product = ((Action) action).getProductToProcess();
+        if (product < 0 || product >= this.actionsNo) {
+            throw new IllegalArgumentException("Action out of range: " + product);
+        }
+        return offset + 1 + this.wordsPerState + product;
+    }
+
+    /**
+     * Allocates table of given number of slots and bits per value, moving stored states into it
+     *
+     * @param capacity number of slots, power of two
+     * @param bits     bits per packed value
+     */
+    private void rebuild(final int capacity, final int bits) {
+        long[] oldTable = this.table;
+        int oldSlotSize = this.slotSize;
+        int oldWords = this.wordsPerState;
+        int oldBits = this.bitsPerValue;
+
+        this.capacity = capacity;
+        this.bitsPerValue = bits;
+        this.wordsPerState = Math.max((this.stateWidth * bits + 63) / 64, 1);
+        this.slotSize = 1 + this.wordsPerState + this.actionsNo;
+        this.table = new long[capacity * this.slotSize];
+        this.packed = new long[this.wordsPerState];
+        this.lastAttrValues = null;
+        this.size = 0;
+        if (oldTable == null) {
+            return;
+        }
+
+        int[] attrValues = new int[this.stateWidth];
+        long[] key = new long[this.wordsPerState];
+        int mask = capacity - 1;
+        for (int oldOffset = 0; oldOffset < oldTable.length; oldOffset += oldSlotSize) {
+            if (oldTable[oldOffset] == 0) {
+                continue;
+            }
+            for (int i = 0; i < this.stateWidth; i++) {
+                attrValues[i] = unpack(oldTable, oldOffset + 1, i, oldBits);
+            }
+            pack(attrValues, key, bits);
+
+            int hash = (int) oldTable[oldOffset];
+            int slot = mix(hash) & mask;
+            while (this.table[slot * this.slotSize] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            int offset = slot * this.slotSize;
+            insert(offset, hash, key);
+            System.arraycopy(oldTable, oldOffset + 1 + oldWords, this.table, offset + 1 + this.wordsPerState,
+                    this.actionsNo);
+        }
+    }
+
+    private int[] getAttrValues(final IState state) {
+        int[] attrValues = ((AgentState) state).getAttrValues();
+        if (attrValues.length != this.stateWidth) {
+            throw new IllegalArgumentException("State has " + attrValues.length + " values, expected "
+                    + this.stateWidth);
+        }
+        return attrValues;
+    }
+
+    /**
+     * Packs attributes values into given words
+     *
+     * @return false if some value does not fit into given number of bits
+     */
+    private static boolean pack(final int[] attrValues, final long[] target, final int bits) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] = 0;
+        }
+        long mask = (1L << bits) - 1;
+        for (int i = 0; i < attrValues.length; i++) {
+            long value = attrValues[i] & 0xFFFFFFFFL;
+            if (value > mask) {
+                return false;
+            }
+            int bit = i * bits;
+            target[bit >>> 6] |= value << (bit & 63);
+        }
+        return true;
+    }
+
+    /** Returns attribute value packed in words starting at given offset */
+    private static int unpack(final long[] words, final int offset, final int attrNo, final int bits) {
+        int bit = attrNo * bits;
+        long mask = (1L << bits) - 1;
+        return (int) ((words[offset + (bit >>> 6)] >>> (bit & 63)) & mask);
+    }
+
+    /** Spreads state hash, which is polynomial hash of small values, over table slots */
+    private static int mix(final int hash) {
+        int result = hash * 0x9E3779B9;
+        return result ^ (result >>> 16);
+    }
+}
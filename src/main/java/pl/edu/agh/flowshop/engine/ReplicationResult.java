@@ -0,0 +1,102 @@
+package pl.edu.agh.flowshop.engine;
+
+import org.apache.commons.math3.distribution.TDistribution;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Results of multiple replications of one experiment: queue sizes series of every replication together with their
+ * mean and confidence bands counted per turn.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+public class ReplicationResult {
+
+    /** Queue sizes from each iteration, one array per replication */
+    private final List<double[]> series;
+
+    /** Mean queue size per turn */
+    private final double[] mean;
+
+    /** Lower bound of confidence interval per turn */
+    private final double[] lowerBound;
+
+    /** Upper bound of confidence interval per turn */
+    private final double[] upperBound;
+
+    /**
+     * Counts statistics over given series
+     *
+     * @param series          queue sizes from each replication
+     * @param confidenceLevel confidence level of bands, e.g. 0.95
+     */
+    public ReplicationResult(final List<double[]> series, final double confidenceLevel) {
+        this.series = Collections.unmodifiableList(new ArrayList<>(series));
+
+        int turns = Integer.MAX_VALUE;
+        for (double[] replication : series) {
+            turns = Math.min(turns, replication.length);
+        }
+        if (series.isEmpty()) {
+            turns = 0;
+        }
+
+        this.mean = new double[turns];
+        this.lowerBound = new double[turns];
+        this.upperBound = new double[turns];
+
+        int n = series.size();
+        double critical = n > 1 ? new TDistribution(n - 1).inverseCumulativeProbability((1 + confidenceLevel) / 2) : 0;
+        for (int turn = 0; turn < turns; turn++) {
+            double sum = 0;
+            for (double[] replication : series) {
+                sum += replication[turn];
+            }
+            double turnMean = sum / n;
+
+            double squares = 0;
+            for (double[] replication : series) {
+                double diff = replication[turn] - turnMean;
+                squares += diff * diff;
+            }
+            double halfWidth = n > 1 ? critical * Math.sqrt(squares / (n - 1)) / Math.sqrt(n) : 0;
+
+            this.mean[turn] = turnMean;
+            this.lowerBound[turn] = turnMean - halfWidth;
+            this.upperBound[turn] = turnMean + halfWidth;
+        }
+    }
+
+    /** Returns number of replications */
+    public int getReplicationsNo() {
+        return series.size();
+    }
+
+    public List<double[]> getSeries() {
+        return series;
+    }
+
+    public double[] getMean() {
+        return mean;
+    }
+
+    public double[] getLowerBound() {
+        return lowerBound;
+    }
+
+    public double[] getUpperBound() {
+        return upperBound;
+    }
+
+    /** Returns mean series in form accepted by {@link pl.edu.agh.flowshop.utils.GraphPanel} */
+    public List<Double> getMeanList() {
+        List<Double> result = new ArrayList<>(mean.length);
+        for (double value : mean) {
+            result.add(value);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,97 @@
+package pl.edu.agh.flowshop.engine;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pl.edu.agh.flowshop.utils.ConfigReader;
+import pl.edu.agh.flowshop.utils.InMemoryMetricsSink;
+import pl.edu.agh.flowshop.utils.Parameters;
+import pl.edu.agh.flowshop.utils.RandomStreams;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs many independent replications of one experiment concurrently. Every replication gets its own {@link Model}
+ * built by {@link ConfigReader#createModel(Parameters)}, so replications share nothing but immutable parameters.
+ * Seed of each replication is split from experiment seed, so whole set of replications is reproducible.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+public class ReplicationRunner {
+
+    /** Default confidence level of bands in results */
+    public static final double DEFAULT_CONFIDENCE_LEVEL = 0.95;
+
+    private final static Logger logger = LogManager.getLogger(ReplicationRunner.class);
+
+    /** Parameters shared by all replications */
+    private final Parameters parameters;
+
+    /** Number of replications to run */
+    private final int replications;
+
+    /** Size of thread pool */
+    private final int threads;
+
+    /** Confidence level of bands in results */
+    private double confidenceLevel = DEFAULT_CONFIDENCE_LEVEL;
+
+    public ReplicationRunner(final Parameters parameters, final int replications, final int threads) {
+        if (replications < 1 || threads < 1) {
+            throw new IllegalArgumentException("Replications and threads number must be positive.");
+        }
+        this.parameters = parameters;
+        this.replications = replications;
+        this.threads = threads;
+    }
+
+    public void setConfidenceLevel(final double confidenceLevel) {
+        this.confidenceLevel = confidenceLevel;
+    }
+
+    /**
+     * Runs all replications on fixed size thread pool and waits for them to finish
+     *
+     * @return queue sizes of every replication with aggregated statistics
+     */
+    public ReplicationResult run() throws Exception {
+        final RandomStreams randomStreams = new RandomStreams(parameters.getSeed());
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, replications));
+        try {
+            List<Future<double[]>> futures = new ArrayList<>(replications);
+            for (int i = 0; i < replications; i++) {
+                final int replicationNo = i;
+                futures.add(executor.submit(new Callable<double[]>() {
+                    @Override
+                    public double[] call() throws Exception {
+                        logger.info("Replication " + replicationNo + " started.");
+                        long seed = randomStreams.split(RandomStreams.REPLICATIONS, replicationNo).getSeed();
+                        InMemoryMetricsSink sink = new InMemoryMetricsSink(parameters.getTurnLimit());
+                        ConfigReader.createModel(parameters, null, seed).run(sink);
+                        logger.info("Replication " + replicationNo + " finished.");
+                        return sink.getQueueSizes();
+                    }
+                }));
+            }
+
+            List<double[]> series = new ArrayList<>(replications);
+            for (Future<double[]> future : futures) {
+                try {
+                    series.add(future.get());
+                } catch (ExecutionException e) {
+                    throw new Exception("Replication failed.", e.getCause());
+                }
+            }
+
+            return new ReplicationResult(series, confidenceLevel);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package pl.edu.agh.flowshop.engine;
+
+import pl.edu.agh.flowshop.utils.StateInput;
+import pl.edu.agh.flowshop.utils.StateOutput;
+import pl.edu.agh.flowshop.utils.StreamRandom;
+import weka.core.FastVector;
+import weka.core.Instance;
+import weka.core.Instances;
+
+import java.io.IOException;
+
+/**
+ * Decides which training examples agent keeps. Policies keep row numbers of examples from shared
+ * {@link TrainingStore}, retaining rows they keep and releasing evicted ones. Policies other than {@link #UNBOUNDED}
+ * keep memory and training cost flat over long runs.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+public abstract class RetentionPolicy {
+
+    /** Keeps all examples */
+    public static final String UNBOUNDED = "unbounded";
+
+    /** Keeps last N examples */
+    public static final String WINDOW = "window";
+
+    /** Keeps uniform random sample of N examples */
+    public static final String RESERVOIR = "reservoir";
+
+    /** Keeps examples with exponentially decaying weights, optionally at most N of them */
+    public static final String DECAY = "decay";
+
+    /** Examples with smaller weight are evicted by {@link #DECAY} policy */
+    private static final double MIN_WEIGHT = 1e-4;
+
+    /** Initial capacity of growing buffers */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** Store holding kept examples */
+    protected final TrainingStore store;
+
+    /** Number of examples offered to policy */
+    private long offered;
+
+    /** Number of examples evicted by policy */
+    private long evicted;
+
+    protected RetentionPolicy(final TrainingStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Creates policy
+     *
+     * @param name   policy name, {@link #UNBOUNDED} if null or empty
+     * @param size   maximal number of kept examples, for {@link #DECAY} 0 means no limit
+     * @param decay  weight multiplier applied to example every time new one is added, used by {@link #DECAY}
+     * @param random random stream used by {@link #RESERVOIR}
+     * @param store  store holding examples
+     */
+    public static RetentionPolicy create(final String name, final int size, final double decay, final StreamRandom random,
+                                         final TrainingStore store) {
+        if (name == null || name.isEmpty() || UNBOUNDED.equals(name)) {
+            return new Window(Integer.MAX_VALUE, store);
+        }
+        switch (name) {
+            case WINDOW:
+                checkSize(name, size);
+                return new Window(size, store);
+            case RESERVOIR:
+                checkSize(name, size);
+                return new Reservoir(size, random, store);
+            case DECAY:
+                if (decay <= 0 || decay >= 1) {
+                    throw new IllegalArgumentException("Decay must be in (0, 1), got: " + decay);
+                }
+                return new Decay(size > 0 ? size : Integer.MAX_VALUE, decay, store);
+            default:
+                throw new IllegalArgumentException("Unknown retention policy: " + name);
+        }
+    }
+
+    private static void checkSize(final String name, final int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Retention policy " + name + " needs positive size, got: " + size);
+        }
+    }
+
+    /** Offers example from given row of store to policy */
+    public void add(final int row) {
+        offered++;
+        store.retain(row);
+        int evictedRow = doAdd(row);
+        if (evictedRow >= 0) {
+            store.release(evictedRow);
+            evicted++;
+        }
+    }
+
+    /** Returns number of currently kept examples */
+    public abstract int size();
+
+    /** Returns number of examples offered to policy */
+    public long getOfferedNo() {
+        return offered;
+    }
+
+    /** Returns number of examples evicted by policy */
+    public long getEvictedNo() {
+        return evicted;
+    }
+
+    /** Writes kept rows and counters */
+    void saveState(final StateOutput output) {
+        output.putLong(offered).putLong(evicted);
+        doSaveState(output);
+    }
+
+    /** Restores state written by {@link #saveState(StateOutput)} by policy of the same type and size */
+    void restoreState(final StateInput input) throws IOException {
+        offered = input.getLong();
+        evicted = input.getLong();
+        doRestoreState(input);
+    }
+
+    /** Builds dataset of kept examples, oldest first, weighted according to policy */
+    public Instances toInstances(final FastVector attributes) {
+        TrainingInstances result = new TrainingInstances(attributes, size());
+        fill(result);
+        return result;
+    }
+
+    /**
+     * Adds row to kept ones
+     *
+     * @return row evicted because of this one, -1 if none
+     */
+    protected abstract int doAdd(int row);
+
+    /** Adds kept examples to given dataset */
+    protected abstract void fill(TrainingInstances target);
+
+    protected abstract void doSaveState(StateOutput output);
+
+    protected abstract void doRestoreState(StateInput input) throws IOException;
+
+    /** Checks if restored number of rows fits into policy */
+    private static void checkRestoredSize(final int size, final int capacity) throws IOException {
+        if (size > capacity) {
+            throw new IOException("Checkpoint keeps " + size + " examples, policy keeps at most " + capacity);
+        }
+    }
+
+    /** Keeps last N rows in growing ring buffer, with N = {@link Integer#MAX_VALUE} it keeps everything */
+    private static class Window extends RetentionPolicy {
+
+        private final int capacity;
+
+        /** Buffer never grows above capacity, so full window wraps around whole buffer */
+        private int[] rows;
+
+        /** Index of oldest row */
+        private int head;
+
+        private int size;
+
+        private Window(final int capacity, final TrainingStore store) {
+            super(store);
+            this.capacity = capacity;
+            this.rows = new int[Math.min(INITIAL_CAPACITY, capacity)];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        protected int doAdd(final int row) {
+            if (size < capacity) {
+                if (size == rows.length) {
+                    grow();
+                }
+                rows[(head + size) % rows.length] = row;
+                size++;
+                return -1;
+            }
+            int evictedRow = rows[head];
+            rows[head] = row;
+            head = (head + 1) % rows.length;
+            return evictedRow;
+        }
+
+        /** Returns row of i-th oldest kept example */
+        private int get(final int i) {
+            return rows[(head + i) % rows.length];
+        }
+
+        private void grow() {
+            int[] grown = new int[(int) Math.min((long) rows.length * 2, capacity)];
+            for (int i = 0; i < size; i++) {
+                grown[i] = get(i);
+            }
+            rows = grown;
+            head = 0;
+        }
+
+        @Override
+        protected void fill(final TrainingInstances target) {
+            for (int i = 0; i < size; i++) {
+                target.addWithoutCopy(store.get(get(i)));
+            }
+        }
+
+        /** Writes buffer length and kept rows, oldest first */
+        @Override
+        protected void doSaveState(final StateOutput output) {
+            output.putInt(rows.length).putInt(size);
+            for (int i = 0; i < size; i++) {
+                output.putInt(get(i));
+            }
+        }
+
+        @Override
+        protected void doRestoreState(final StateInput input) throws IOException {
+            int length = input.getInt();
+            size = input.getInt();
+            checkRestoredSize(Math.max(length, size), capacity);
+            rows = new int[Math.max(length, size)];
+            for (int i = 0; i < size; i++) {
+                rows[i] = input.getInt();
+            }
+            head = 0;
+        }
+    }
+
+    /** Keeps uniform random sample of all offered examples (algorithm R) */
+    private static class Reservoir extends RetentionPolicy {
+
+        private final StreamRandom random;
+
+        private final int[] rows;
+
+        private int size;
+
+        private Reservoir(final int capacity, final StreamRandom random, final TrainingStore store) {
+            super(store);
+            this.random = random;
+            this.rows = new int[capacity];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        protected int doAdd(final int row) {
+            if (size < rows.length) {
+                rows[size++] = row;
+                return -1;
+            }
+            // offered count already includes this row
+            long slot = (long) (random.nextDouble() * getOfferedNo());
+            if (slot < rows.length) {
+                int evictedRow = rows[(int) slot];
+                rows[(int) slot] = row;
+                return evictedRow;
+            }
+            return row;
+        }
+
+        @Override
+        protected void fill(final TrainingInstances target) {
+            for (int i = 0; i < size; i++) {
+                target.addWithoutCopy(store.get(rows[i]));
+            }
+        }
+
+        @Override
+        protected void doSaveState(final StateOutput output) {
+            output.putInts(rows, size).putRandom(random);
+        }
+
+        @Override
+        protected void doRestoreState(final StateInput input) throws IOException {
+            int[] restored = input.getInts();
+            checkRestoredSize(restored.length, rows.length);
+            System.arraycopy(restored, 0, rows, 0, restored.length);
+            size = restored.length;
+            input.getRandom(random);
+        }
+    }
+
+    /** Keeps examples weighted with decay^age, evicts ones which weight became negligible */
+    private static class Decay extends RetentionPolicy {
+
+        private final double decay;
+
+        /** Examples older than maximal age of example with weight above {@link #MIN_WEIGHT} fall out of window */
+        private final Window window;
+
+        private Decay(final int capacity, final double decay, final TrainingStore store) {
+            super(store);
+            this.decay = decay;
+            long maxAge = (long) Math.floor(Math.log(MIN_WEIGHT) / Math.log(decay));
+            this.window = new Window((int) Math.min(capacity, maxAge + 1), store);
+        }
+
+        @Override
+        public int size() {
+            return window.size();
+        }
+
+        @Override
+        protected int doAdd(final int row) {
+            return window.doAdd(row);
+        }
+
+        @Override
+        protected void fill(final TrainingInstances target) {
+            // newest example has weight 1, every older one is multiplied by decay once per newer example,
+            // examples are shared with other machines, so weighted ones are copies
+            double weight = Math.pow(decay, window.size() - 1);
+            for (int i = 0; i < window.size(); i++) {
+                Instance example = (Instance) store.get(window.get(i)).copy();
+                example.setWeight(weight);
+                target.addWithoutCopy(example);
+                weight /= decay;
+            }
+        }
+
+        @Override
+        protected void doSaveState(final StateOutput output) {
+            window.doSaveState(output);
+        }
+
+        @Override
+        protected void doRestoreState(final StateInput input) throws IOException {
+            window.doRestoreState(input);
+        }
+    }
+
+    /** Dataset which refers to added instances instead of copying them */
+    protected static class TrainingInstances extends Instances {
+
+        private static final long serialVersionUID = 1L;
+
+        TrainingInstances(final FastVector attributes, final int capacity) {
+            super("TrainSet", attributes, capacity);
+            setClassIndex(numAttributes() - 1);
+        }
+
+        /** Adds instance without copying it, instance keeps its dataset and must not be modified afterwards */
+        protected void addWithoutCopy(final Instance instance) {
+            m_Instances.addElement(instance);
+        }
+    }
+}
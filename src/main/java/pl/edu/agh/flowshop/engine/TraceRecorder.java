@@ -0,0 +1,195 @@
+package pl.edu.agh.flowshop.engine;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Records simulation events as fixed size binary records into memory mapped segment files, replacing debug logging
+ * on hot paths. Recording event costs few stores into mapped buffer, traces are converted to CSV with
+ * {@link pl.edu.agh.flowshop.utils.TraceReader}.
+ * </br>
+ * Segment file starts with header: magic, format version, record size and number of written records, followed by
+ * records of {@link #RECORD_SIZE} bytes: turn, event type, source (machine, layer, order or product) and two values
+ * depending on event type. Number of records in header is updated with every record, so segment can be read even if
+ * model did not close recorder. Turns skipped by event driven main loop have no records, nothing changes in them.
+ * Recorder created with no-arg constructor is disabled and ignores all events.
+ * Recorder is not thread safe, it is used from main loop only.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+public class TraceRecorder implements Closeable {
+
+    /** Machine chose product, values: chosen product, previous product */
+    public static final int DECISION = 0;
+
+    /** Machine took task from buffer, values: product, processing time */
+    public static final int TASK_TAKEN = 1;
+
+    /** Machine finished product, values: product, 0 */
+    public static final int COMPLETION = 2;
+
+    /** Machine broke down, values: product returned to buffer or -1, 0 */
+    public static final int BREAKDOWN = 3;
+
+    /** Buffer level of layer at end of turn, values: product, quantity */
+    public static final int BUFFER = 4;
+
+    /** Finished products waiting for delivery at end of turn, source is product, values: quantity, 0 */
+    public static final int STOCK = 5;
+
+    /** Order arrived, source is order number, values: due turn, priority */
+    public static final int ARRIVAL = 6;
+
+    /** Order delivered, source is order number, values: reward, due time left at delivery */
+    public static final int DELIVERY = 7;
+
+    /** Names of event types, indexed by type */
+    public static final String[] EVENT_NAMES = {"decision", "task_taken", "completion", "breakdown", "buffer",
+            "stock", "arrival", "delivery"};
+
+    /** Value marking segment files */
+    public static final int MAGIC = 0x464C5452;
+
+    /** Version of segment format */
+    public static final int VERSION = 1;
+
+    /** Size of segment header in bytes */
+    public static final int HEADER_SIZE = 16;
+
+    /** Offset of number of records in segment header */
+    public static final int COUNT_OFFSET = 12;
+
+    /** Size of record in bytes */
+    public static final int RECORD_SIZE = 20;
+
+    /** Suffix of segment files */
+    public static final String SEGMENT_SUFFIX = ".trace";
+
+    /** Default number of records in one segment */
+    private static final int DEFAULT_SEGMENT_RECORDS = 1 << 20;
+
+    /** Directory with segments, null if recorder is disabled */
+    private final Path directory;
+
+    /** Number of records in one segment */
+    private final int segmentRecords;
+
+    /** Mapped current segment */
+    private MappedByteBuffer segment;
+
+    /** Number of current segment */
+    private int segmentNo = -1;
+
+    /** Number of records in current segment */
+    private int segmentCount;
+
+    /** Turn of recorded events */
+    private int turnNo;
+
+    /** Creates disabled recorder */
+    public TraceRecorder() {
+        this.directory = null;
+        this.segmentRecords = 0;
+    }
+
+    /** Creates recorder writing segments into new directory created under given one */
+    public TraceRecorder(final Path parent, final String name) throws IOException {
+        this(parent, name, DEFAULT_SEGMENT_RECORDS);
+    }
+
+    /**
+     * Creates recorder writing segments into new directory created under given one
+     *
+     * @param parent         parent directory of traces
+     * @param name           name of trace directory, suffixed with number if it already exists
+     * @param segmentRecords number of records in one segment
+     */
+    public TraceRecorder(final Path parent, final String name, final int segmentRecords) throws IOException {
+        Files.createDirectories(parent);
+        this.directory = createDirectory(parent, name);
+        this.segmentRecords = segmentRecords;
+        nextSegment();
+    }
+
+    /** Returns true if recorder writes events */
+    public boolean isEnabled() {
+        return this.directory != null;
+    }
+
+    /** Returns directory with segments, null if recorder is disabled */
+    public Path getDirectory() {
+        return this.directory;
+    }
+
+    /** Sets turn of events recorded from now on */
+    public void setTurnNo(final int turnNo) {
+        this.turnNo = turnNo;
+    }
+
+    /** Records event of given type */
+    public void record(final int type, final int source, final int value1, final int value2) {
+        if (this.directory == null) {
+            return;
+        }
+        if (this.segmentCount == this.segmentRecords) {
+            nextSegment();
+        }
+
+        this.segment.putInt(this.turnNo);
+        this.segment.putInt(type);
+        this.segment.putInt(source);
+        this.segment.putInt(value1);
+        this.segment.putInt(value2);
+        this.segment.putInt(COUNT_OFFSET, ++this.segmentCount);
+    }
+
+    /** Flushes current segment to disk, recorder should not be used afterwards */
+    @Override
+    public void close() {
+        if (this.segment != null) {
+            this.segment.force();
+            this.segment = null;
+        }
+    }
+
+    /** Maps next segment file */
+    private void nextSegment() {
+        if (this.segment != null) {
+            this.segment.force();
+        }
+
+        Path path = this.directory.resolve(String.format("segment-%05d%s", ++this.segmentNo, SEGMENT_SUFFIX));
+        long size = HEADER_SIZE + (long) this.segmentRecords * RECORD_SIZE;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            // mapping stays valid after channel is closed
+            this.segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not create trace segment " + path, e);
+        }
+
+        this.segment.putInt(MAGIC);
+        this.segment.putInt(VERSION);
+        this.segment.putInt(RECORD_SIZE);
+        this.segment.putInt(0);
+        this.segmentCount = 0;
+    }
+
+    /** Creates new directory with given name, or name suffixed with first free number, so parallel runs do not clash */
+    private static Path createDirectory(final Path parent, final String name) throws IOException {
+        for (int i = 0; ; i++) {
+            try {
+                return Files.createDirectory(parent.resolve(i == 0 ? name : name + "-" + i));
+            } catch (FileAlreadyExistsException e) {
+                // try next suffix
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package pl.edu.agh.flowshop.engine;
+
+import weka.core.Instance;
+
+/**
+ * Machine specific filter of examples from shared {@link TrainingStore}.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+public interface TrainingFilter {
+
+    /** Returns true if machine should learn from given example, example must not be modified */
+    boolean accept(LearningAgent agent, Instance example);
+}
@@ -0,0 +1,188 @@
+package pl.edu.agh.flowshop.engine;
+
+import pl.edu.agh.flowshop.utils.StateInput;
+import pl.edu.agh.flowshop.utils.StateOutput;
+import weka.core.Instance;
+import weka.core.Instances;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only store of training examples shared by all machines of model. Every example is stored once and machines
+ * refer to it by row number, see {@link RetentionPolicy}.
+ * </br>
+ * Rows are reference counted: row appended to store is held by caller until it calls {@link #release(int)}, and by
+ * every policy which {@link #retain(int) retained} it. Row nobody holds is dropped, and chunk of rows is dropped
+ * as whole once all its rows are, so memory follows number of examples kept by machines.
+ * Store is not thread safe, it is used from main loop only.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+public class TrainingStore {
+
+    /** Number of bits of row number addressing row inside chunk */
+    private static final int CHUNK_BITS = 10;
+
+    /** Number of rows in one chunk */
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    /** Mask of row number addressing row inside chunk */
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    /** Dataset header set on every stored example */
+    private final Instances header;
+
+    /** Chunks of rows, null for dropped ones */
+    private final List<Chunk> chunks = new ArrayList<>();
+
+    /** Number of rows appended so far, also next row number */
+    private int appended;
+
+    /** Number of rows currently held */
+    private int live;
+
+    public TrainingStore(final Instances header) {
+        this.header = header;
+    }
+
+    /**
+     * Appends example to store, example must not be modified afterwards
+     *
+     * @return row number of example, held by caller until {@link #release(int)}
+     */
+    public int append(final Instance example) {
+        if (appended == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Training store is full.");
+        }
+        int row = appended++;
+        if ((row & CHUNK_MASK) == 0) {
+            chunks.add(new Chunk());
+        }
+        // examples shared by stores of parallel offline training already have header, so they are not written to
+        if (example.dataset() != header) {
+            example.setDataset(header);
+        }
+
+        Chunk chunk = chunks.get(row >>> CHUNK_BITS);
+        chunk.rows[row & CHUNK_MASK] = example;
+        chunk.references[row & CHUNK_MASK] = 1;
+        chunk.live++;
+        live++;
+        return row;
+    }
+
+    /** Returns example stored in given row */
+    public Instance get(final int row) {
+        Chunk chunk = chunks.get(row >>> CHUNK_BITS);
+        Instance result = chunk != null ? chunk.rows[row & CHUNK_MASK] : null;
+        if (result == null) {
+            throw new IllegalStateException("Row " + row + " was already released.");
+        }
+        return result;
+    }
+
+    /** Marks row as held by one more owner */
+    public void retain(final int row) {
+        get(row);
+        chunks.get(row >>> CHUNK_BITS).references[row & CHUNK_MASK]++;
+    }
+
+    /** Marks row as no longer held by one owner, drops it when nobody holds it */
+    public void release(final int row) {
+        get(row);
+        int chunkNo = row >>> CHUNK_BITS;
+        Chunk chunk = chunks.get(chunkNo);
+        if (--chunk.references[row & CHUNK_MASK] > 0) {
+            return;
+        }
+
+        chunk.rows[row & CHUNK_MASK] = null;
+        chunk.live--;
+        live--;
+        // chunk which will not get more rows is dropped as soon as it is empty
+        boolean sealed = appended >= (chunkNo + 1) * CHUNK_SIZE;
+        if (chunk.live == 0 && sealed) {
+            chunks.set(chunkNo, null);
+        }
+    }
+
+    /** Returns number of rows appended since start */
+    public int getAppendedNo() {
+        return appended;
+    }
+
+    /** Returns number of rows currently held */
+    public int getLiveNo() {
+        return live;
+    }
+
+    /** Writes held rows with their reference counts, stored examples are never modified so they are not copied */
+    void saveState(final StateOutput output) {
+        output.putInt(appended).putInt(live);
+        Instance[] rows = new Instance[live];
+        int i = 0;
+        for (int chunkNo = 0; chunkNo < chunks.size(); chunkNo++) {
+            Chunk chunk = chunks.get(chunkNo);
+            if (chunk == null) {
+                continue;
+            }
+            for (int j = 0; j < CHUNK_SIZE; j++) {
+                if (chunk.rows[j] != null) {
+                    output.putInt((chunkNo << CHUNK_BITS) | j).putInt(chunk.references[j]);
+                    rows[i++] = chunk.rows[j];
+                }
+            }
+        }
+        output.putObject(rows);
+    }
+
+    /** Replaces content of store with rows written by {@link #saveState(StateOutput)} */
+    void restoreState(final StateInput input) throws IOException {
+        chunks.clear();
+        appended = input.getInt();
+        live = input.getInt();
+        int[] rowNumbers = new int[live];
+        int[] references = new int[live];
+        for (int i = 0; i < live; i++) {
+            rowNumbers[i] = input.getInt();
+            references[i] = input.getInt();
+        }
+        Instance[] rows = (Instance[]) input.getObject();
+        if (rows.length != live) {
+            throw new IOException("Expected " + live + " training rows, got " + rows.length);
+        }
+
+        // chunk exists if it holds rows or will get more rows, as in store which was never restored
+        int chunksNo = (int) (((long) appended + CHUNK_SIZE - 1) >>> CHUNK_BITS);
+        for (int chunkNo = 0; chunkNo < chunksNo; chunkNo++) {
+            boolean sealed = appended >= (chunkNo + 1) * CHUNK_SIZE;
+            chunks.add(sealed ? null : new Chunk());
+        }
+        for (int i = 0; i < live; i++) {
+            int chunkNo = rowNumbers[i] >>> CHUNK_BITS;
+            Chunk chunk = chunks.get(chunkNo);
+            if (chunk == null) {
+                chunk = new Chunk();
+                chunks.set(chunkNo, chunk);
+            }
+            rows[i].setDataset(header);
+            chunk.rows[rowNumbers[i] & CHUNK_MASK] = rows[i];
+            chunk.references[rowNumbers[i] & CHUNK_MASK] = references[i];
+            chunk.live++;
+        }
+    }
+
+    /** Rows of one chunk with their reference counts */
+    private static class Chunk {
+
+        private final Instance[] rows = new Instance[CHUNK_SIZE];
+
+        private final int[] references = new int[CHUNK_SIZE];
+
+        /** Number of held rows in chunk */
+        private int live;
+    }
+}
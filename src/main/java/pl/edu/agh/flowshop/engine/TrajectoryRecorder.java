@@ -0,0 +1,327 @@
+package pl.edu.agh.flowshop.engine;
+
+import pl.edu.agh.flowshop.utils.AttributeSchema;
+import weka.core.Attribute;
+import weka.core.Instance;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Records trajectories of learning into append-only segment files, so agents can be trained offline by
+ * {@link OfflineTrainer}. Recorded are training examples of supervised agents, created when orders are delivered,
+ * and steps of reinforcement learning agents: state, action, reward and next state.
+ * </br>
+ * Records are written in one of two formats, read back with {@link pl.edu.agh.flowshop.utils.TrajectoryReader}:
+ * <li>
+ * <ul>{@link #BINARY} - memory mapped segments of fixed size records, like {@link TraceRecorder} ones. Segment starts
+ * with header: magic, format version, number of features, record size and number of written records, followed by
+ * records: turn, machine ({@link #EXAMPLE_SOURCE} for examples), action or label, reward and values of state and next
+ * state features, next state of examples is zeroed.</ul>
+ * <ul>{@link #ARFF} - text segments, each one a complete ARFF file with columns: turn, machine, reward, state
+ * features, next state features (missing for examples) and action or label as nominal class.</ul>
+ * </li>
+ * Recorder created with no-arg constructor is disabled and ignores all records.
+ * Recorder is not thread safe, it is used from main loop only.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+public class TrajectoryRecorder implements Closeable {
+
+    /** Compact binary format */
+    public static final String BINARY = "binary";
+
+    /** ARFF format, readable by weka tools */
+    public static final String ARFF = "arff";
+
+    /** Machine of records holding training examples, shared by all supervised machines */
+    public static final int EXAMPLE_SOURCE = -1;
+
+    /** Value marking binary segment files */
+    public static final int MAGIC = 0x464C544A;
+
+    /** Version of binary segment format */
+    public static final int VERSION = 1;
+
+    /** Size of binary segment header in bytes */
+    public static final int HEADER_SIZE = 20;
+
+    /** Offset of number of records in binary segment header */
+    public static final int COUNT_OFFSET = 16;
+
+    /** Suffix of binary segment files */
+    public static final String BINARY_SUFFIX = ".trj";
+
+    /** Suffix of ARFF segment files */
+    public static final String ARFF_SUFFIX = ".arff";
+
+    /** Prefix of names of next state features in ARFF segments */
+    public static final String NEXT_PREFIX = "next";
+
+    /** Default size of binary segment in bytes, ARFF segments have the same number of records */
+    private static final int DEFAULT_SEGMENT_BYTES = 1 << 25;
+
+    /** Directory with segments, null if recorder is disabled */
+    private final Path directory;
+
+    /** True if segments are written in ARFF format */
+    private final boolean arff;
+
+    /** Schema of recorded states */
+    private final AttributeSchema schema;
+
+    /** Number of actions of reinforcement learning agents */
+    private final int actionsNo;
+
+    /** Size of binary record in bytes */
+    private final int recordSize;
+
+    /** Number of records in one segment */
+    private final int segmentRecords;
+
+    /** Mapped current binary segment */
+    private MappedByteBuffer segment;
+
+    /** Writer of current ARFF segment */
+    private Writer writer;
+
+    /** Number of current segment */
+    private int segmentNo = -1;
+
+    /** Number of records in current segment */
+    private int segmentCount;
+
+    /** Turn of recorded records */
+    private int turnNo;
+
+    /** Creates disabled recorder */
+    public TrajectoryRecorder() {
+        this.directory = null;
+        this.arff = false;
+        this.schema = null;
+        this.actionsNo = 0;
+        this.recordSize = 0;
+        this.segmentRecords = 0;
+    }
+
+    /**
+     * Creates recorder writing segments into new directory created under given one
+     *
+     * @param parent    parent directory of trajectories
+     * @param name      name of trajectory directory, suffixed with number if it already exists
+     * @param format    {@link #BINARY} or {@link #ARFF}
+     * @param schema    schema of recorded states
+     * @param actionsNo number of actions of reinforcement learning agents
+     */
+    public TrajectoryRecorder(final Path parent, final String name, final String format, final AttributeSchema schema,
+                              final int actionsNo) throws IOException {
+        if (!BINARY.equals(format) && !ARFF.equals(format)) {
+            throw new IllegalArgumentException("Unknown trajectory format: " + format);
+        }
+        this.arff = ARFF.equals(format);
+        this.schema = schema;
+        this.actionsNo = actionsNo;
+        this.recordSize = getRecordSize(schema.getFeaturesNo());
+        this.segmentRecords = Math.max(DEFAULT_SEGMENT_BYTES / this.recordSize, 1);
+        Files.createDirectories(parent);
+        this.directory = createDirectory(parent, name);
+        nextSegment();
+    }
+
+    /** Returns size of binary record of states of given number of features */
+    public static int getRecordSize(final int featuresNo) {
+        return 20 + 8 * featuresNo;
+    }
+
+    /** Returns true if recorder writes records */
+    public boolean isEnabled() {
+        return this.directory != null;
+    }
+
+    /** Returns directory with segments, null if recorder is disabled */
+    public Path getDirectory() {
+        return this.directory;
+    }
+
+    /** Sets turn of records recorded from now on */
+    public void setTurnNo(final int turnNo) {
+        this.turnNo = turnNo;
+    }
+
+    /** Records training example with cumulative reward of delivery it was created in */
+    public void recordExample(final Instance example, final double reward) {
+        if (this.directory == null) {
+            return;
+        }
+        int featuresNo = this.schema.getFeaturesNo();
+        if (this.arff) {
+            StringBuilder line = startLine(EXAMPLE_SOURCE, reward);
+            for (int slot = 0; slot < featuresNo; slot++) {
+                line.append((int) example.value(slot)).append(',');
+            }
+            for (int slot = 0; slot < featuresNo; slot++) {
+                line.append("?,");
+            }
+            writeLine(line.append((int) example.classValue()));
+            return;
+        }
+
+        MappedByteBuffer segment = startRecord(EXAMPLE_SOURCE, (int) example.classValue(), reward);
+        for (int slot = 0; slot < featuresNo; slot++) {
+            segment.putInt((int) example.value(slot));
+        }
+        for (int slot = 0; slot < featuresNo; slot++) {
+            segment.putInt(0);
+        }
+        endRecord();
+    }
+
+    /** Records step of reinforcement learning agent of given machine, states are features values */
+    public void recordStep(final int machineId, final int[] state, final int action, final double reward,
+                           final int[] nextState) {
+        if (this.directory == null) {
+            return;
+        }
+        if (this.arff) {
+            StringBuilder line = startLine(machineId, reward);
+            for (int value : state) {
+                line.append(value).append(',');
+            }
+            for (int value : nextState) {
+                line.append(value).append(',');
+            }
+            writeLine(line.append(action));
+            return;
+        }
+
+        MappedByteBuffer segment = startRecord(machineId, action, reward);
+        for (int value : state) {
+            segment.putInt(value);
+        }
+        for (int value : nextState) {
+            segment.putInt(value);
+        }
+        endRecord();
+    }
+
+    /** Flushes current segment to disk, recorder should not be used afterwards */
+    @Override
+    public void close() {
+        if (this.segment != null) {
+            this.segment.force();
+            this.segment = null;
+        }
+        if (this.writer != null) {
+            try {
+                this.writer.close();
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not close trajectory segment in " + this.directory, e);
+            }
+            this.writer = null;
+        }
+    }
+
+    private MappedByteBuffer startRecord(final int source, final int action, final double reward) {
+        if (this.segmentCount == this.segmentRecords) {
+            nextSegment();
+        }
+        this.segment.putInt(this.turnNo);
+        this.segment.putInt(source);
+        this.segment.putInt(action);
+        this.segment.putDouble(reward);
+        return this.segment;
+    }
+
+    private void endRecord() {
+        this.segment.putInt(COUNT_OFFSET, ++this.segmentCount);
+    }
+
+    private StringBuilder startLine(final int source, final double reward) {
+        if (this.segmentCount == this.segmentRecords) {
+            nextSegment();
+        }
+        return new StringBuilder(8 * this.schema.getFeaturesNo()).append(this.turnNo).append(',').append(source)
+                .append(',').append(reward).append(',');
+    }
+
+    private void writeLine(final StringBuilder line) {
+        try {
+            this.writer.write(line.append('\n').toString());
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write trajectory segment in " + this.directory, e);
+        }
+        this.segmentCount++;
+    }
+
+    /** Closes current segment and opens next one */
+    private void nextSegment() {
+        close();
+        Path path = this.directory.resolve(String.format("segment-%05d%s", ++this.segmentNo,
+                this.arff ? ARFF_SUFFIX : BINARY_SUFFIX));
+        try {
+            if (this.arff) {
+                this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE_NEW,
+                        StandardOpenOption.WRITE);
+                writeArffHeader(this.writer);
+            } else {
+                long size = HEADER_SIZE + (long) this.segmentRecords * this.recordSize;
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    // mapping stays valid after channel is closed
+                    this.segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                }
+                this.segment.putInt(MAGIC);
+                this.segment.putInt(VERSION);
+                this.segment.putInt(this.schema.getFeaturesNo());
+                this.segment.putInt(this.recordSize);
+                this.segment.putInt(0);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not create trajectory segment " + path, e);
+        }
+        this.segmentCount = 0;
+    }
+
+    private void writeArffHeader(final Writer writer) throws IOException {
+        writer.write("@relation trajectory\n\n");
+        writer.write("@attribute turn numeric\n@attribute machine numeric\n@attribute reward numeric\n");
+        for (int slot = 0; slot < this.schema.getFeaturesNo(); slot++) {
+            writer.write("@attribute " + getFeatureName(slot) + " numeric\n");
+        }
+        for (int slot = 0; slot < this.schema.getFeaturesNo(); slot++) {
+            writer.write("@attribute " + NEXT_PREFIX + getFeatureName(slot) + " numeric\n");
+        }
+
+        // labels of examples and actions of agents share class attribute
+        int valuesNo = Math.max(this.schema.getClassAttribute().numValues(), this.actionsNo);
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < valuesNo; i++) {
+            values.append(i > 0 ? "," : "").append(i);
+        }
+        writer.write("@attribute action {" + values + "}\n\n@data\n");
+    }
+
+    private String getFeatureName(final int slot) {
+        return ((Attribute) this.schema.getAttributes().elementAt(slot)).name();
+    }
+
+    /** Creates new directory with given name, or name suffixed with first free number, so parallel runs do not clash */
+    private static Path createDirectory(final Path parent, final String name) throws IOException {
+        for (int i = 0; ; i++) {
+            try {
+                return Files.createDirectory(parent.resolve(i == 0 ? name : name + "-" + i));
+            } catch (FileAlreadyExistsException e) {
+                // try next suffix
+            }
+        }
+    }
+}
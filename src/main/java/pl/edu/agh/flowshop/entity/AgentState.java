@@ -1,63 +1,101 @@
 package pl.edu.agh.flowshop.entity;
 
 import environment.AbstractState;
-import environment.ActionList;
 import environment.IEnvironment;
 import environment.IState;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Objects;
+import java.util.Arrays;
 
 /**
  * Agent state.
+ * </br>
+ * Attributes values are kept in packed primitive array which is treated as immutable once set, so hash can be
+ * computed only once and {@link #copy()} can share the array. State may know agent it belongs to and total quantity in
+ * its buffers, which are not part of its identity.
  *
  * @author Bartosz Sądel
  *         Created on 09.04.2016.
  */
 public class AgentState extends AbstractState {
 
-    private List<Integer> attrValues;
+    /** Attributes values, must not be modified after being set */
+    private int[] attrValues = new int[0];
+
+    /** Cached hash of {@link #attrValues} */
+    private int hash = Arrays.hashCode(attrValues);
+
+    /** Number of agent state belongs to, -1 if it is not known */
+    private int agentNo = -1;
+
+    /** Total quantity in buffers of state, -1 if it is not computed yet */
+    private int buffersSum = -1;
 
     public AgentState(final IEnvironment ct) {
         super(ct);
     }
 
-    public List<Integer> getAttrValues() {
+    public AgentState(final IEnvironment ct, final int[] attrValues) {
+        super(ct);
+        setAttrValues(attrValues);
+    }
+
+    public AgentState(final IEnvironment ct, final int[] attrValues, final int agentNo) {
+        this(ct, attrValues);
+        this.agentNo = agentNo;
+    }
+
+    /** Returns attributes values. Returned array must not be modified. */
+    public int[] getAttrValues() {
         return attrValues;
     }
 
-    public void setAttrValues(final List<Integer> attrValues) {
+    /** Returns number of agent state belongs to, -1 if it is not known */
+    public int getAgentNo() {
+        return agentNo;
+    }
+
+    public void setAttrValues(final int[] attrValues) {
         this.attrValues = attrValues;
+        this.hash = Arrays.hashCode(attrValues);
+        this.buffersSum = -1;
+    }
+
+    /** Returns total quantity in buffers of state, -1 if it is not computed yet */
+    public int getBuffersSum() {
+        return buffersSum;
+    }
+
+    /** Sets total quantity in buffers computed with attributes values, so rewards do not sum them again */
+    public void setBuffersSum(final int buffersSum) {
+        this.buffersSum = buffersSum;
     }
 
     @Override
     public IState copy() {
         AgentState copy = new AgentState(getEnvironment());
-        copy.attrValues = new ArrayList<>(this.attrValues);
+        copy.attrValues = this.attrValues;
+        copy.hash = this.hash;
+        copy.agentNo = this.agentNo;
+        copy.buffersSum = this.buffersSum;
         return copy;
     }
 
     @Override
     public boolean equals(final Object obj) {
-        if(!(obj instanceof AgentState)) {
-            return false;
+        if (this == obj) {
+            return true;
         }
-
-        for(int i=0; i<attrValues.size(); i++) {
-            Integer val1 = this.attrValues.get(i);
-            Integer val2 = ((AgentState) obj).getAttrValues().get(i);
-            if(!val1.equals(val2)) {
-                return false;
-            }
+        if (!(obj instanceof AgentState)) {
+            return false;
         }
 
-        return true;
+        AgentState other = (AgentState) obj;
+        return this.hash == other.hash && Arrays.equals(this.attrValues, other.attrValues);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(attrValues);
+        return hash;
     }
 
     @Override
@@ -10,6 +10,9 @@ import pl.edu.agh.flowshop.utils.Parameters;
  */
 public class Order {
 
+    /** Order number, consecutive in order of generation */
+    private final long number;
+
     /** Product list */
     private final int[] productsList;
 
@@ -22,12 +25,14 @@ public class Order {
     /** Order priority */
     private final int priority;
 
-    /** Due time for completion */
-    private int dueTime;
+    /** Turn in which order is due, absolute so it does not have to be counted down every turn */
+    private final int dueTurn;
 
-    public Order(final int[] productsList, final int dueTime, final int reward, final int penalty, final int priority) {
+    public Order(final long number, final int[] productsList, final int dueTurn, final int reward, final int penalty,
+                 final int priority) {
+        this.number = number;
         this.productsList = productsList;
-        this.dueTime = dueTime;
+        this.dueTurn = dueTurn;
         this.reward = reward;
         this.penalty = penalty;
         this.priority = priority;
@@ -39,29 +44,34 @@ public class Order {
         for (int product : productsList) {
             products.append(product).append(",");
         }
-        return "Order -> products: [" + products + "] reward: " + reward + " penalty: " + penalty + " priority: "
-                + priority + " dueTime: " + dueTime;
+        return "Order " + number + " -> products: [" + products + "] reward: " + reward + " penalty: " + penalty
+                + " priority: " + priority + " dueTurn: " + dueTurn;
     }
 
-    /** Counts and returns value of order */
-    public int getValue() {
+    /** Counts and returns value of order based on products costs from given parameters */
+    public int getValue(final Parameters parameters) {
         int result = 0;
-        for (int i = 0; i < Parameters.PRODUCT_TYPES_NO; i++) {
-            result += productsList[i] * Parameters.COSTS.get(i);
+        for (int i = 0; i < productsList.length; i++) {
+            result += productsList[i] * parameters.getCosts().get(i);
         }
         return result;
     }
 
-    public void decreaseDueTime() {
-        this.dueTime--;
+    public long getNumber() {
+        return number;
     }
 
     public int[] getProductsList() {
         return productsList;
     }
 
-    public int getDueTime() {
-        return dueTime;
+    public int getDueTurn() {
+        return dueTurn;
+    }
+
+    /** Returns number of turns left to due turn in given turn, negative if order is overdue */
+    public int getDueTime(final int turnNo) {
+        return dueTurn - turnNo;
     }
 
     public int getReward() {
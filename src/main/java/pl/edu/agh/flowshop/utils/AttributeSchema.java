@@ -0,0 +1,155 @@
+package pl.edu.agh.flowshop.utils;
+
+import weka.core.Attribute;
+import weka.core.FastVector;
+
+import java.util.Arrays;
+
+/**
+ * Immutable layout of attributes describing model, created by {@link Attributes#initAttributes}.
+ * </br>
+ * Schema maps machines health and layers buffers to slots of attributes values, so states, decision instances and
+ * training examples are read and written by precomputed indices instead of attribute names. Feature slots come before
+ * class slot, which is last.
+ * </br>
+ * Schema of large model is sparse: health slots hold 1 for broken machines instead of healthy ones, so features of
+ * healthy model with empty buffers are all zeros and sparse instances keep only active state.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+public final class AttributeSchema {
+
+    /** Weka attributes, must not be modified */
+    private final FastVector attributes;
+
+    /** Slots of machines health, by layer number and machine number within layer */
+    private final int[][] healthSlots;
+
+    /** Slots of buffers, by layer number and product */
+    private final int[][] bufferSlots;
+
+    /** Slots of all buffers, in order of slots */
+    private final int[] allBufferSlots;
+
+    private final int classSlot;
+
+    /** True if health slots mark broken machines */
+    private final boolean sparse;
+
+    /**
+     * Creates schema
+     *
+     * @param attributes  weka attributes, schema takes ownership of them
+     * @param healthSlots slots of machines health, by layer number and machine number within layer
+     * @param bufferSlots slots of buffers, by layer number and product
+     * @param sparse      true if health slots mark broken machines
+     */
+    AttributeSchema(final FastVector attributes, final int[][] healthSlots, final int[][] bufferSlots,
+                    final boolean sparse) {
+        this.attributes = attributes;
+        this.sparse = sparse;
+        this.healthSlots = copy(healthSlots);
+        this.bufferSlots = copy(bufferSlots);
+        this.classSlot = attributes.size() - 1;
+
+        int buffersNo = 0;
+        for (int[] layerSlots : bufferSlots) {
+            buffersNo += layerSlots.length;
+        }
+        this.allBufferSlots = new int[buffersNo];
+        int i = 0;
+        for (int[] layerSlots : bufferSlots) {
+            for (int slot : layerSlots) {
+                this.allBufferSlots[i++] = slot;
+            }
+        }
+        Arrays.sort(this.allBufferSlots);
+    }
+
+    /** Returns weka attributes, returned vector must not be modified */
+    public FastVector getAttributes() {
+        return this.attributes;
+    }
+
+    /** Returns number of attributes, including class attribute */
+    public int getAttributesNo() {
+        return this.classSlot + 1;
+    }
+
+    /** Returns number of feature attributes, which is also length of state attributes values */
+    public int getFeaturesNo() {
+        return this.classSlot;
+    }
+
+    public int getClassSlot() {
+        return this.classSlot;
+    }
+
+    /** Returns class attribute */
+    public Attribute getClassAttribute() {
+        return (Attribute) this.attributes.elementAt(this.classSlot);
+    }
+
+    /** Returns true if schema is sparse, see {@link AttributeSchema} */
+    public boolean isSparse() {
+        return this.sparse;
+    }
+
+    /** Returns value of health slot of machine */
+    public int getHealthValue(final boolean broken) {
+        return broken == this.sparse ? 1 : 0;
+    }
+
+    public int getLayersNo() {
+        return this.healthSlots.length;
+    }
+
+    /** Returns slot of health of given machine of given layer */
+    public int getHealthSlot(final int layerNo, final int machineNo) {
+        return this.healthSlots[layerNo][machineNo];
+    }
+
+    /** Returns slot of buffer of given product of given layer */
+    public int getBufferSlot(final int layerNo, final int product) {
+        return this.bufferSlots[layerNo][product];
+    }
+
+    /**
+     * Returns names of attributes in order of slots, nominal ones followed by their values in braces. Models of the
+     * same signature describe state the same way, so learned policies can be moved between them.
+     */
+    public String[] getSignature() {
+        String[] result = new String[this.attributes.size()];
+        for (int slot = 0; slot < result.length; slot++) {
+            Attribute attribute = (Attribute) this.attributes.elementAt(slot);
+            StringBuilder signature = new StringBuilder(attribute.name());
+            if (attribute.isNominal()) {
+                signature.append('{');
+                for (int i = 0; i < attribute.numValues(); i++) {
+                    signature.append(i > 0 ? "," : "").append(attribute.value(i));
+                }
+                signature.append('}');
+            }
+            result[slot] = signature.toString();
+        }
+        return result;
+    }
+
+    /** Returns total quantity in all buffers of given attributes values */
+    public int sumBuffers(final int[] values) {
+        int result = 0;
+        for (int slot : this.allBufferSlots) {
+            result += values[slot];
+        }
+        return result;
+    }
+
+    private static int[][] copy(final int[][] slots) {
+        int[][] result = new int[slots.length][];
+        for (int i = 0; i < slots.length; i++) {
+            result[i] = slots[i].clone();
+        }
+        return result;
+    }
+}
@@ -18,31 +18,43 @@ public abstract class Attributes {
     /** Attribute holding health info prefix */
     public static final String HEALTH_PREFIX = "_health_";
 
-    public static FastVector attributes;
+    /** Attribute holding breakdown info prefix, used instead of health by sparse schema */
+    public static final String BROKEN_PREFIX = "_broken_";
 
-    public static int size() {
-        return attributes.size();
-    }
+    /**
+     * Creates attributes describing given model, result belongs to that model only. Schema is sparse if model has at
+     * least sparse threshold features.
+     */
+    public static AttributeSchema initAttributes(final Model model) {
+        int productTypesNo = model.getParameters().getProductTypesNo();
 
-    public static void initAttributes(final Model model) {
         //count number of attributes for learning
-        int attrNo = Parameters.PRODUCT_TYPES_NO * model.getLayers().size();
+        int attrNo = productTypesNo * model.getLayers().size();
         for (Layer layer : model.getLayers()) {
             attrNo += layer.getMachines().size();
         }
         //attrNo *= Parameters.USED_HISTORY;
+        int threshold = model.getParameters().getSparseThreshold();
+        boolean sparse = threshold > 0 && attrNo >= threshold;
         attrNo++;
 
         // attributes initialization, for now same for all learning layers
         FastVector attr_vec = new FastVector(attrNo);
+        int[][] healthSlots = new int[model.getLayers().size()][];
+        int[][] bufferSlots = new int[model.getLayers().size()][productTypesNo];
         //for (int i = 0; i < Parameters.USED_HISTORY; i++) {
-            for (Layer layer : model.getLayers()) {
-                for (Machine machine : layer.getMachines()) {
-                    Attribute health = new Attribute(HEALTH_PREFIX + machine.getId());
+            for (int layerNo = 0; layerNo < model.getLayers().size(); layerNo++) {
+                Layer layer = model.getLayers().get(layerNo);
+                healthSlots[layerNo] = new int[layer.getMachines().size()];
+                for (int machineNo = 0; machineNo < layer.getMachines().size(); machineNo++) {
+                    Machine machine = layer.getMachines().get(machineNo);
+                    Attribute health = new Attribute((sparse ? BROKEN_PREFIX : HEALTH_PREFIX) + machine.getId());
+                    healthSlots[layerNo][machineNo] = attr_vec.size();
                     attr_vec.addElement(health);
                 }
-                for (int j = 0; j < Parameters.PRODUCT_TYPES_NO; j++) {
+                for (int j = 0; j < productTypesNo; j++) {
                     Attribute buffer = new Attribute(BUFFER_PREFIX + layer.getId() + "_" + j);
+                    bufferSlots[layerNo][j] = attr_vec.size();
                     attr_vec.addElement(buffer);
                 }
             }
@@ -54,7 +66,7 @@ public abstract class Attributes {
         result.addElement("2");
         attr_vec.addElement(new Attribute("result", result));
 
-        attributes = attr_vec;
+        return new AttributeSchema(attr_vec, healthSlots, bufferSlots, sparse);
     }
 
 }
@@ -0,0 +1,167 @@
+package pl.edu.agh.flowshop.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes metrics to compact binary columnar file.
+ * </br>
+ * File starts with header: magic and format version, followed by blocks of at most {@link #blockRows} turns.
+ * Block consists of its first turn number, number of turns, queue sizes column (doubles) and delivered orders column
+ * (ints). Every block is written to file as soon as it is full, so file can be read with {@link #read(Path)} while
+ * experiment runs, and memory used by sink does not depend on run length.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+public class BinaryMetricsSink implements MetricsSink {
+
+    /** Value marking metrics files */
+    public static final int MAGIC = 0x464C4D54;
+
+    /** Version of file format */
+    public static final int VERSION = 1;
+
+    /** Default number of turns in block */
+    public static final int DEFAULT_BLOCK_ROWS = 4096;
+
+    /** Size of file header in bytes */
+    private static final int HEADER_SIZE = 8;
+
+    /** Size of block header in bytes */
+    private static final int BLOCK_HEADER_SIZE = 8;
+
+    /** Size of one turn in block in bytes */
+    private static final int ROW_SIZE = 12;
+
+    private final FileChannel channel;
+
+    /** Maximal number of turns in block */
+    private final int blockRows;
+
+    /** Buffer of current block */
+    private final ByteBuffer block;
+
+    private final double[] queueSizes;
+
+    private final int[] finishedOrders;
+
+    /** First turn of current block */
+    private int firstTurnNo;
+
+    /** Number of turns in current block */
+    private int rows;
+
+    public BinaryMetricsSink(final Path path) throws IOException {
+        this(path, DEFAULT_BLOCK_ROWS);
+    }
+
+    public BinaryMetricsSink(final Path path, final int blockRows) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.blockRows = blockRows;
+        this.block = ByteBuffer.allocate(BLOCK_HEADER_SIZE + blockRows * ROW_SIZE);
+        this.queueSizes = new double[blockRows];
+        this.finishedOrders = new int[blockRows];
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).flip();
+        writeFully(header);
+    }
+
+    @Override
+    public void accept(final int turnNo, final double queueSize, final int finishedOrders) throws IOException {
+        if (this.rows == 0) {
+            this.firstTurnNo = turnNo;
+        }
+        this.queueSizes[this.rows] = queueSize;
+        this.finishedOrders[this.rows] = finishedOrders;
+        if (++this.rows == this.blockRows) {
+            writeBlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (this.rows > 0) {
+                writeBlock();
+            }
+        } finally {
+            this.channel.close();
+        }
+    }
+
+    /**
+     * Reads all complete blocks of metrics file
+     *
+     * @return sink filled with read metrics
+     */
+    public static InMemoryMetricsSink read(final Path path) throws IOException {
+        InMemoryMetricsSink result = new InMemoryMetricsSink();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            if (!readFully(channel, header) || header.getInt() != MAGIC) {
+                throw new IOException("Not a metrics file: " + path);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported metrics file version " + version + ": " + path);
+            }
+
+            ByteBuffer blockHeader = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+            while (readFully(channel, blockHeader)) {
+                int firstTurnNo = blockHeader.getInt();
+                int rows = blockHeader.getInt();
+                ByteBuffer block = ByteBuffer.allocate(rows * ROW_SIZE);
+                if (!readFully(channel, block)) {
+                    // block still being written
+                    break;
+                }
+                for (int i = 0; i < rows; i++) {
+                    result.accept(firstTurnNo + i, block.getDouble(i * 8), block.getInt(rows * 8 + i * 4));
+                }
+                blockHeader.clear();
+            }
+        }
+        return result;
+    }
+
+    private void writeBlock() throws IOException {
+        this.block.clear();
+        this.block.putInt(this.firstTurnNo).putInt(this.rows);
+        for (int i = 0; i < this.rows; i++) {
+            this.block.putDouble(this.queueSizes[i]);
+        }
+        for (int i = 0; i < this.rows; i++) {
+            this.block.putInt(this.finishedOrders[i]);
+        }
+        this.block.flip();
+        writeFully(this.block);
+        this.rows = 0;
+    }
+
+    private void writeFully(final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            this.channel.write(buffer);
+        }
+    }
+
+    /**
+     * Fills buffer from channel and flips it
+     *
+     * @return false if channel ended before buffer was filled
+     */
+    private static boolean readFully(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                return false;
+            }
+        }
+        buffer.flip();
+        return true;
+    }
+}
@@ -0,0 +1,69 @@
+package pl.edu.agh.flowshop.utils;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Writes charts drawn by {@link GraphPanel} to files without showing any window, so it works on headless machines.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+public class ChartExporter {
+
+    /** Extension of charts written as SVG, other ones are written as PNG */
+    public static final String SVG_EXTENSION = ".svg";
+
+    private static final String PNG_FORMAT = "png";
+
+    private ChartExporter() {
+    }
+
+    /** Writes chart of default window size, SVG if file name ends with .svg, PNG otherwise */
+    public static void export(final List<Double> scores, final Path path) throws IOException {
+        export(scores, path, GraphPanel.WINDOW_WIDTH, GraphPanel.WINDOW_HEIGHT);
+    }
+
+    /** Writes chart of given size, SVG if file name ends with .svg, PNG otherwise */
+    public static void export(final List<Double> scores, final Path path, final int width, final int height)
+            throws IOException {
+        if (path.getFileName().toString().toLowerCase().endsWith(SVG_EXTENSION)) {
+            writeSvg(scores, path, width, height);
+        } else {
+            writePng(scores, path, width, height);
+        }
+    }
+
+    public static void writePng(final List<Double> scores, final Path path, final int width, final int height)
+            throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2 = image.createGraphics();
+        try {
+            g2.setColor(Color.WHITE);
+            g2.fillRect(0, 0, width, height);
+            new GraphPanel(scores).paintChart(g2, width, height);
+        } finally {
+            g2.dispose();
+        }
+        try (OutputStream output = Files.newOutputStream(path)) {
+            if (!ImageIO.write(image, PNG_FORMAT, output)) {
+                throw new IOException("No PNG writer available.");
+            }
+        }
+    }
+
+    public static void writeSvg(final List<Double> scores, final Path path, final int width, final int height)
+            throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            new GraphPanel(scores).writeSvg(writer, width, height);
+        }
+    }
+}
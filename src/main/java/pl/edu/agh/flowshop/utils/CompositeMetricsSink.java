@@ -0,0 +1,46 @@
+package pl.edu.agh.flowshop.utils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Passes metrics to all given sinks, e.g. to file and to memory for presentation.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+public class CompositeMetricsSink implements MetricsSink {
+
+    private final List<MetricsSink> sinks;
+
+    public CompositeMetricsSink(final MetricsSink... sinks) {
+        this.sinks = new ArrayList<>(Arrays.asList(sinks));
+    }
+
+    @Override
+    public void accept(final int turnNo, final double queueSize, final int finishedOrders) throws IOException {
+        for (MetricsSink sink : this.sinks) {
+            sink.accept(turnNo, queueSize, finishedOrders);
+        }
+    }
+
+    /** Closes all sinks, rethrows first failure */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (MetricsSink sink : this.sinks) {
+            try {
+                sink.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -11,6 +11,10 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -27,12 +31,64 @@ public class ConfigReader {
 
     /** Creates model based on config files */
     public static Model createModel() {
-        List<List<Machine>> machinesConf = getMachinesConfig();
+        return createModel(Parameters.load());
+    }
+
+    /**
+     * Creates model based on machines config file and given parameters. Every call builds completely independent
+     * model, with its own machines, ids and attributes, so models can be run concurrently.
+     */
+    public static Model createModel(final Parameters parameters) {
+        return createModel(parameters, null);
+    }
+
+    /**
+     * Creates model like {@link #createModel(Parameters)} does, additionally overriding classifier of every machine.
+     *
+     * @param parameters     experiment parameters
+     * @param classifierName classifier used by all machines, null to keep ones from config file
+     */
+    public static Model createModel(final Parameters parameters, final String classifierName) {
+        return createModel(parameters, classifierName, parameters.getSeed());
+    }
+
+    /**
+     * Creates model like {@link #createModel(Parameters, String)} does, with random streams derived from given seed.
+     *
+     * @param parameters     experiment parameters
+     * @param classifierName classifier used by all machines, null to keep ones from config file
+     * @param seed           seed of model random streams
+     */
+    public static Model createModel(final Parameters parameters, final String classifierName, final long seed) {
+        List<List<Machine>> machinesConf = getMachinesConfig(parameters);
+        if (classifierName != null) {
+            for (List<Machine> machines : machinesConf) {
+                for (Machine machine : machines) {
+                    machine.setClassifierName(classifierName);
+                }
+            }
+        }
+
+        return createModelOfMachines(parameters, machinesConf, seed);
+    }
+
+    /**
+     * Creates model of given machines instead of ones from config file, e.g. machines created programmatically.
+     * Machines are initialized for created model, so they can not be shared between models.
+     *
+     * @param parameters   experiment parameters
+     * @param machinesConf machines of every layer, machines without ids get consecutive ones
+     * @param seed         seed of model random streams
+     */
+    public static Model createModelOfMachines(final Parameters parameters, final List<List<Machine>> machinesConf,
+                                              final long seed) {
         List<Layer> layers = new ArrayList<>();
-        Model model = new Model(layers);
+        Model model = new Model(layers, parameters, seed);
 
+        assignMachinesIds(machinesConf);
+        int layerId = 0;
         for (List<Machine> machines : machinesConf) {
-            layers.add(new Layer(machines));
+            layers.add(new Layer(++layerId, machines, parameters.getProductTypesNo()));
         }
 
         for (Layer layer : layers) {
@@ -40,7 +96,7 @@ public class ConfigReader {
         }
 
         /** Init attributes */
-        Attributes.initAttributes(model);
+        model.setSchema(Attributes.initAttributes(model));
 
         for (Layer layer: layers) {
             for(Machine machine : layer.getMachines()) {
@@ -51,13 +107,40 @@ public class ConfigReader {
         return model;
     }
 
-    /** Reads machines configuration from file */
-    private static List<List<Machine>> getMachinesConfig() {
+    /** Assigns ids to machines which have none in config file, ids are numbered after highest configured one */
+    private static void assignMachinesIds(final List<List<Machine>> machinesConf) {
+        int maxId = -1;
+        for (List<Machine> machines : machinesConf) {
+            for (Machine machine : machines) {
+                maxId = Math.max(maxId, machine.getId());
+            }
+        }
+
+        for (List<Machine> machines : machinesConf) {
+            for (Machine machine : machines) {
+                if (machine.getId() < 0) {
+                    machine.setId(++maxId);
+                }
+            }
+        }
+    }
+
+    /** Reads machines configuration from machines file of parameters, or from machines.json if there is none */
+    private static List<List<Machine>> getMachinesConfig(final Parameters parameters) {
         Gson gson = new GsonBuilder().setPrettyPrinting().create();
-        try (Reader reader = new InputStreamReader(new ResourceFileReader().getResourcesFileStream("machines.json"))) {
-            Type type = new TypeToken<List<List<Machine>>>() {
+        Type type = new TypeToken<List<List<Machine>>>() {
+
+        }.getType();
+        if (parameters.getMachinesFile() != null) {
+            Path path = Paths.get(parameters.getMachinesFile());
+            try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                return gson.fromJson(reader, type);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Could not read machines file " + path, e);
+            }
+        }
 
-            }.getType();
+        try (Reader reader = new InputStreamReader(new ResourceFileReader().getResourcesFileStream("machines.json"))) {
             return gson.fromJson(reader, type);
         } catch (IOException e) {
             e.printStackTrace();
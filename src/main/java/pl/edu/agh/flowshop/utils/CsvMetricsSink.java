@@ -0,0 +1,57 @@
+package pl.edu.agh.flowshop.utils;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes metrics to CSV file, one row per turn. Output is flushed every {@link #flushInterval} turns, so file can be
+ * tailed while experiment runs.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+public class CsvMetricsSink implements MetricsSink {
+
+    /** Default number of turns between flushes */
+    public static final int DEFAULT_FLUSH_INTERVAL = 1000;
+
+    /** Header of CSV output */
+    private static final String CSV_HEADER = "turn,queue_size,finished_orders";
+
+    private final Writer writer;
+
+    /** Number of turns between flushes */
+    private final int flushInterval;
+
+    public CsvMetricsSink(final Path path) throws IOException {
+        this(path, DEFAULT_FLUSH_INTERVAL);
+    }
+
+    public CsvMetricsSink(final Path path, final int flushInterval) throws IOException {
+        this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+        this.flushInterval = flushInterval;
+        this.writer.write(CSV_HEADER);
+        this.writer.write('\n');
+    }
+
+    @Override
+    public void accept(final int turnNo, final double queueSize, final int finishedOrders) throws IOException {
+        this.writer.write(Integer.toString(turnNo));
+        this.writer.write(',');
+        this.writer.write(Double.toString(queueSize));
+        this.writer.write(',');
+        this.writer.write(Integer.toString(finishedOrders));
+        this.writer.write('\n');
+        if ((turnNo + 1) % this.flushInterval == 0) {
+            this.writer.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.writer.close();
+    }
+}
@@ -0,0 +1,79 @@
+package pl.edu.agh.flowshop.utils;
+
+import java.util.List;
+
+/**
+ * Reduces number of points of series before drawing, keeping its visual shape.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+public class Downsampler {
+
+    private Downsampler() {
+    }
+
+    /**
+     * Selects points of series with largest-triangle-three-buckets algorithm. First and last points are always kept,
+     * remaining ones are split into equal buckets and from every bucket point forming largest triangle with point
+     * selected from previous bucket and average of next bucket is kept. Every value is read twice, so it works in
+     * linear time.
+     *
+     * @param values    series, x coordinate of value is its index
+     * @param threshold maximal number of selected points
+     * @return indices of selected points, ascending, all indices if series has at most threshold points or threshold
+     * is smaller than 3
+     */
+    public static int[] lttb(final List<Double> values, final int threshold) {
+        int size = values.size();
+        if (threshold >= size || threshold < 3) {
+            int[] result = new int[size];
+            for (int i = 0; i < size; i++) {
+                result[i] = i;
+            }
+            return result;
+        }
+
+        int[] result = new int[threshold];
+        // points between first and last one are split into threshold - 2 buckets
+        double bucketSize = (double) (size - 2) / (threshold - 2);
+        int selected = 0;
+        double selectedValue = values.get(0);
+        int rangeStart = 1;
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            int rangeEnd = (int) ((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int) ((bucket + 2) * bucketSize) + 1, size);
+
+            double averageX = 0;
+            double averageY = 0;
+            for (int i = rangeEnd; i < nextEnd; i++) {
+                averageX += i;
+                averageY += values.get(i);
+            }
+            averageX /= nextEnd - rangeEnd;
+            averageY /= nextEnd - rangeEnd;
+
+            double maxArea = -1;
+            int next = rangeStart;
+            double nextValue = selectedValue;
+            for (int i = rangeStart; i < rangeEnd; i++) {
+                double value = values.get(i);
+                // doubled area of triangle, only compared
+                double area = Math.abs((selected - averageX) * (value - selectedValue)
+                        - (selected - i) * (averageY - selectedValue));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = i;
+                    nextValue = value;
+                }
+            }
+
+            result[bucket + 1] = next;
+            selected = next;
+            selectedValue = nextValue;
+            rangeStart = rangeEnd;
+        }
+        result[threshold - 1] = size - 1;
+        return result;
+    }
+}
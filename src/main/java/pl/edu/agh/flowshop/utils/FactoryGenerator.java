@@ -0,0 +1,148 @@
+package pl.edu.agh.flowshop.utils;
+
+import com.google.gson.stream.JsonWriter;
+import pl.edu.agh.flowshop.engine.Machine;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates synthetic factories of any size: machines config in format of machines.json, with given number of layers,
+ * machines in every layer and product types. Processing times are drawn from seeded generator, so the same arguments
+ * always give the same factory. Models of large factories use sparse representations, see
+ * {@link AttributeSchema}.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+public class FactoryGenerator {
+
+    /** Shortest processing time of product */
+    public static final int MIN_PROCESSING_TIME = 2;
+
+    /** Longest processing time of product */
+    public static final int MAX_PROCESSING_TIME = 6;
+
+    /** Highest price of product, prices repeat from 1 to it */
+    public static final int MAX_PRODUCT_PRICE = 4;
+
+    private final int layersNo;
+
+    /** Number of machines in every layer */
+    private final int machinesNo;
+
+    private final int productTypesNo;
+
+    /** Classifier of all machines */
+    private final String classifierName;
+
+    /** Seed of processing times */
+    private final long seed;
+
+    public FactoryGenerator(final int layersNo, final int machinesNo, final int productTypesNo,
+                            final String classifierName, final long seed) {
+        if (layersNo < 1 || machinesNo < 1 || productTypesNo < 1) {
+            throw new IllegalArgumentException("Factory needs at least one layer, machine and product type, got "
+                    + layersNo + ", " + machinesNo + " and " + productTypesNo);
+        }
+        this.layersNo = layersNo;
+        this.machinesNo = machinesNo;
+        this.productTypesNo = productTypesNo;
+        this.classifierName = classifierName;
+        this.seed = seed;
+    }
+
+    /**
+     * Writes machines config of factory to file given as first argument and prints parameters it needs, to be put
+     * into flowshop.properties. Classifier is J48 and seed is 42 unless given.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.err.println("Usage: FactoryGenerator <machines file> <layers> <machines per layer> "
+                    + "<product types> [classifier] [seed]");
+            return;
+        }
+
+        FactoryGenerator generator = new FactoryGenerator(Integer.parseInt(args[1]), Integer.parseInt(args[2]),
+                Integer.parseInt(args[3]), args.length > 4 ? args[4] : "J48",
+                args.length > 5 ? Long.parseLong(args[5]) : 42);
+        Path path = Paths.get(args[0]);
+        generator.write(path);
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        generator.writeProperties(path, writer);
+        writer.flush();
+    }
+
+    /** Writes machines config of factory, machines are streamed, so writing takes little memory at any size */
+    public void write(final Path path) throws IOException {
+        Random random = new Random(this.seed);
+        try (JsonWriter writer = new JsonWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8))) {
+            writer.setIndent("  ");
+            writer.beginArray();
+            int id = 0;
+            for (int layerNo = 0; layerNo < this.layersNo; layerNo++) {
+                writer.beginArray();
+                for (int machineNo = 0; machineNo < this.machinesNo; machineNo++) {
+                    writer.beginObject();
+                    writer.name("id").value(++id);
+                    writer.name("timeTable").beginObject();
+                    for (Map.Entry<Integer, Integer> entry : drawTimeTable(random).entrySet()) {
+                        writer.name(String.valueOf(entry.getKey())).value(entry.getValue());
+                    }
+                    writer.endObject();
+                    writer.name("classifierName").value(this.classifierName);
+                    writer.endObject();
+                }
+                writer.endArray();
+            }
+            writer.endArray();
+        }
+    }
+
+    /**
+     * Creates machines of factory, the same ones {@link #write(Path)} writes, for models created with
+     * {@link ConfigReader#createModelOfMachines}
+     */
+    public List<List<Machine>> createMachines() {
+        Random random = new Random(this.seed);
+        List<List<Machine>> result = new ArrayList<>(this.layersNo);
+        int id = 0;
+        for (int layerNo = 0; layerNo < this.layersNo; layerNo++) {
+            List<Machine> layer = new ArrayList<>(this.machinesNo);
+            for (int machineNo = 0; machineNo < this.machinesNo; machineNo++) {
+                layer.add(new Machine(++id, drawTimeTable(random), this.classifierName));
+            }
+            result.add(layer);
+        }
+        return result;
+    }
+
+    /** Writes parameters factory needs: machines file, number of product types and their prices */
+    public void writeProperties(final Path path, final Writer writer) throws IOException {
+        writer.write("MACHINES_FILE = " + path.toAbsolutePath().toString().replace('\\', '/') + "\n");
+        writer.write("PRODUCT_TYPES = " + this.productTypesNo + "\n");
+        for (int i = 0; i < this.productTypesNo; i++) {
+            writer.write("PRODUCT_PRICE_" + i + " = " + (i % MAX_PRODUCT_PRICE + 1) + "\n");
+        }
+    }
+
+    private Map<Integer, Integer> drawTimeTable(final Random random) {
+        Map<Integer, Integer> result = new HashMap<>();
+        for (int product = 0; product < this.productTypesNo; product++) {
+            result.put(product, MIN_PROCESSING_TIME + random.nextInt(MAX_PROCESSING_TIME - MIN_PROCESSING_TIME + 1));
+        }
+        return result;
+    }
+}
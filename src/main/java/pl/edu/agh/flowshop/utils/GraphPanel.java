@@ -2,20 +2,33 @@ package pl.edu.agh.flowshop.utils;
 
 import javax.swing.*;
 import java.awt.*;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.Writer;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * Panel of graph drawing.
+ * </br>
+ * Long series are downsampled with {@link Downsampler#lttb(List, int)} to {@link #POINTS_PER_PIXEL} points per pixel
+ * of plot width before drawing, and range of series is computed once when scores are set, so drawing cost does not
+ * depend on series length. Same chart can be painted on any {@link Graphics2D} or written as SVG, see
+ * {@link ChartExporter}.
  *
  * @author Bartosz
  *         Created on 2016-03-17.
  */
 public class GraphPanel extends JPanel {
 
-    private final static int WINDOW_WIDTH = 800;
+    public final static int WINDOW_WIDTH = 800;
 
-    private final static int WINDOW_HEIGHT = 600;
+    public final static int WINDOW_HEIGHT = 600;
+
+    /** Number of drawn points per pixel of plot width */
+    private static final int POINTS_PER_PIXEL = 2;
+
+    /** Estimated width of label character, used for spacing labels the same way on screen and in SVG */
+    private static final int LABEL_CHAR_WIDTH = 7;
 
     private static final Stroke GRAPH_STROKE = new BasicStroke(2f);
 
@@ -33,11 +46,26 @@ public class GraphPanel extends JPanel {
 
     private int numberYDivisions = 10;
 
+    /** Number of labelled divisions of x axis */
+    private int numberXDivisions = 20;
+
     private List<Double> scores;
 
+    private double minScore;
+
+    private double maxScore;
+
+    /** Space left of plot for y axis labels, widened for long labels */
+    private int yLabelsWidth;
+
+    /** Indices of drawn scores, computed for {@link #sampledThreshold} */
+    private int[] sampled;
+
+    private int sampledThreshold = -1;
+
     public GraphPanel(List<Double> scores) {
-        this.scores = scores;
         this.setPreferredSize(new Dimension(WINDOW_WIDTH, WINDOW_HEIGHT));
+        setScores(scores);
     }
 
     public List<Double> getScores() {
@@ -46,6 +74,9 @@ public class GraphPanel extends JPanel {
 
     public void setScores(List<Double> scores) {
         this.scores = scores;
+        updateRange();
+        this.sampled = null;
+        this.sampledThreshold = -1;
         invalidate();
         this.repaint();
     }
@@ -53,101 +84,214 @@ public class GraphPanel extends JPanel {
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
-        Graphics2D g2 = (Graphics2D) g;
-        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-        double xScale = ((double) getWidth() - (2 * padding) - labelPadding) / (scores.size() - 1);
-        double yScale = ((double) getHeight() - 2 * padding - labelPadding) / (getMaxScore() - getMinScore());
+        paintChart((Graphics2D) g, getWidth(), getHeight());
+    }
 
-        List<Point> graphPoints = new ArrayList<>();
-        for (int i = 0; i < scores.size(); i++) {
-            int x1 = (int) (i * xScale + padding + labelPadding);
-            int y1 = (int) ((getMaxScore() - scores.get(i)) * yScale + padding);
-            graphPoints.add(new Point(x1, y1));
-        }
+    /** Paints chart of given size */
+    public void paintChart(final Graphics2D g2, final int width, final int height) {
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        int[] points = getSampled(width);
 
         // draw white background
         g2.setColor(Color.WHITE);
-        g2.fillRect(padding + labelPadding, padding, getWidth() - (2 * padding) - labelPadding, getHeight() - 2 * padding - labelPadding);
+        g2.fillRect(getPlotLeft(), getPlotTop(), getPlotRight(width) - getPlotLeft(), height - 2 * padding - labelPadding);
         g2.setColor(Color.BLACK);
 
         // create hatch marks and grid lines for y axis.
+        FontMetrics metrics = g2.getFontMetrics();
         for (int i = 0; i < numberYDivisions + 1; i++) {
-            int x0 = padding + labelPadding;
-            int x1 = pointWidth + padding + labelPadding;
-            int y0 = getHeight() - ((i * (getHeight() - padding * 2 - labelPadding)) / numberYDivisions + padding + labelPadding);
-            int y1 = y0;
+            int x0 = getPlotLeft();
+            int x1 = pointWidth + x0;
+            int y0 = getYDivision(i, height);
             if (scores.size() > 0) {
                 g2.setColor(gridColor);
-                g2.drawLine(padding + labelPadding + 1 + pointWidth, y0, getWidth() - padding, y1);
+                g2.drawLine(x0 + 1 + pointWidth, y0, getPlotRight(width), y0);
                 g2.setColor(Color.BLACK);
-                String yLabel = ((int) ((getMinScore() + (getMaxScore() - getMinScore()) * ((i * 1.0) / numberYDivisions)) * 100)) / 100.0 + "";
-                FontMetrics metrics = g2.getFontMetrics();
+                String yLabel = getYLabel(i);
                 int labelWidth = metrics.stringWidth(yLabel);
                 g2.drawString(yLabel, x0 - labelWidth - 5, y0 + (metrics.getHeight() / 2) - 3);
             }
-            g2.drawLine(x0, y0, x1, y1);
+            g2.drawLine(x0, y0, x1, y0);
         }
 
-        // and for x axis
-        for (int i = 0; i < scores.size(); i++) {
-            if (scores.size() > 1) {
-                int x0 = i * (getWidth() - padding * 2 - labelPadding) / (scores.size() - 1) + padding + labelPadding;
-                int x1 = x0;
-                int y0 = getHeight() - padding - labelPadding;
-                int y1 = y0 - pointWidth;
-                if ((i % ((int) ((scores.size() / 20.0)) + 1)) == 0) {
-                    g2.setColor(gridColor);
-                    g2.drawLine(x0, getHeight() - padding - labelPadding - 1 - pointWidth, x1, padding);
-                    g2.setColor(Color.BLACK);
-                    String xLabel = i + "";
-                    FontMetrics metrics = g2.getFontMetrics();
-                    int labelWidth = metrics.stringWidth(xLabel);
-                    g2.drawString(xLabel, x0 - labelWidth / 2, y0 + metrics.getHeight() + 3);
-                }
-                g2.drawLine(x0, y0, x1, y1);
+        // and for x axis, only labelled positions are visited
+        if (scores.size() > 1) {
+            int step = getXLabelStep(width);
+            for (int i = 0; i < scores.size(); i += step) {
+                int x0 = (int) getX(i, width);
+                int y0 = getPlotBottom(height);
+                g2.setColor(gridColor);
+                g2.drawLine(x0, y0 - 1 - pointWidth, x0, getPlotTop());
+                g2.setColor(Color.BLACK);
+                String xLabel = i + "";
+                int labelWidth = metrics.stringWidth(xLabel);
+                g2.drawString(xLabel, x0 - labelWidth / 2, y0 + metrics.getHeight() + 3);
+                g2.drawLine(x0, y0, x0, y0 - pointWidth);
             }
         }
 
         // create x and y axes
-        g2.drawLine(padding + labelPadding, getHeight() - padding - labelPadding, padding + labelPadding, padding);
-        g2.drawLine(padding + labelPadding, getHeight() - padding - labelPadding, getWidth() - padding, getHeight() - padding - labelPadding);
+        g2.drawLine(getPlotLeft(), getPlotBottom(height), getPlotLeft(), getPlotTop());
+        g2.drawLine(getPlotLeft(), getPlotBottom(height), getPlotRight(width), getPlotBottom(height));
 
         Stroke oldStroke = g2.getStroke();
         g2.setColor(lineColor);
         g2.setStroke(GRAPH_STROKE);
-        for (int i = 0; i < graphPoints.size() - 1; i++) {
-            int x1 = graphPoints.get(i).x;
-            int y1 = graphPoints.get(i).y;
-            int x2 = graphPoints.get(i + 1).x;
-            int y2 = graphPoints.get(i + 1).y;
-            g2.drawLine(x1, y1, x2, y2);
+        for (int i = 0; i < points.length - 1; i++) {
+            g2.drawLine((int) getX(points[i], width), (int) getY(points[i], height),
+                    (int) getX(points[i + 1], width), (int) getY(points[i + 1], height));
         }
 
         g2.setStroke(oldStroke);
         g2.setColor(pointColor);
-        for (int i = 0; i < graphPoints.size(); i++) {
-            int x = graphPoints.get(i).x - pointWidth / 2;
-            int y = graphPoints.get(i).y - pointWidth / 2;
-            int ovalW = pointWidth;
-            int ovalH = pointWidth;
-            g2.fillOval(x, y, ovalW, ovalH);
+        for (int point : points) {
+            int x = (int) getX(point, width) - pointWidth / 2;
+            int y = (int) getY(point, height) - pointWidth / 2;
+            g2.fillOval(x, y, pointWidth, pointWidth);
         }
     }
 
-    private double getMinScore() {
-        double minScore = Double.MAX_VALUE;
-        for (Double score : scores) {
-            minScore = Math.min(minScore, score);
+    /** Writes chart of given size as SVG document, drawing the same elements as {@link #paintChart} */
+    public void writeSvg(final Writer writer, final int width, final int height) throws IOException {
+        int[] points = getSampled(width);
+
+        writer.write(String.format(Locale.ROOT, "<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"%d\" "
+                + "height=\"%d\" viewBox=\"0 0 %d %d\" font-family=\"sans-serif\" font-size=\"12\">\n", width, height,
+                width, height));
+        writer.write("<rect width=\"100%\" height=\"100%\" fill=\"white\"/>\n");
+        writer.write(String.format(Locale.ROOT, "<rect x=\"%d\" y=\"%d\" width=\"%d\" height=\"%d\" fill=\"white\"/>\n",
+                getPlotLeft(), getPlotTop(), getPlotRight(width) - getPlotLeft(), height - 2 * padding - labelPadding));
+
+        for (int i = 0; i < numberYDivisions + 1; i++) {
+            int x0 = getPlotLeft();
+            int y0 = getYDivision(i, height);
+            if (scores.size() > 0) {
+                writeSvgLine(writer, x0 + 1 + pointWidth, y0, getPlotRight(width), y0, gridColor);
+                writer.write(String.format(Locale.ROOT, "<text x=\"%d\" y=\"%d\" text-anchor=\"end\" "
+                        + "dominant-baseline=\"middle\">%s</text>\n", x0 - 5, y0, getYLabel(i)));
+            }
+            writeSvgLine(writer, x0, y0, x0 + pointWidth, y0, Color.BLACK);
+        }
+
+        if (scores.size() > 1) {
+            int step = getXLabelStep(width);
+            for (int i = 0; i < scores.size(); i += step) {
+                int x0 = (int) getX(i, width);
+                int y0 = getPlotBottom(height);
+                writeSvgLine(writer, x0, y0 - 1 - pointWidth, x0, getPlotTop(), gridColor);
+                writer.write(String.format(Locale.ROOT, "<text x=\"%d\" y=\"%d\" text-anchor=\"middle\" "
+                        + "dominant-baseline=\"hanging\">%d</text>\n", x0, y0 + 3, i));
+                writeSvgLine(writer, x0, y0, x0, y0 - pointWidth, Color.BLACK);
+            }
+        }
+
+        writeSvgLine(writer, getPlotLeft(), getPlotBottom(height), getPlotLeft(), getPlotTop(), Color.BLACK);
+        writeSvgLine(writer, getPlotLeft(), getPlotBottom(height), getPlotRight(width), getPlotBottom(height),
+                Color.BLACK);
+
+        if (points.length > 0) {
+            writer.write("<polyline fill=\"none\" stroke-width=\"2\" " + getSvgColor("stroke", lineColor)
+                    + " points=\"");
+            for (int point : points) {
+                writer.write(String.format(Locale.ROOT, "%.1f,%.1f ", getX(point, width), getY(point, height)));
+            }
+            writer.write("\"/>\n");
+
+            writer.write("<g " + getSvgColor("fill", pointColor) + ">\n");
+            for (int point : points) {
+                writer.write(String.format(Locale.ROOT, "<circle cx=\"%.1f\" cy=\"%.1f\" r=\"%.1f\"/>\n",
+                        getX(point, width), getY(point, height), pointWidth / 2.0));
+            }
+            writer.write("</g>\n");
         }
-        return minScore;
+        writer.write("</svg>\n");
     }
 
-    private double getMaxScore() {
-        double maxScore = Double.MIN_VALUE;
-        for (Double score : scores) {
-            maxScore = Math.max(maxScore, score);
+    /** Returns indices of scores drawn on chart of given width, downsampling is reused while plot width is same */
+    private int[] getSampled(final int width) {
+        int threshold = Math.max(getPlotRight(width) - getPlotLeft(), 1) * POINTS_PER_PIXEL;
+        if (this.sampled == null || this.sampledThreshold != threshold) {
+            this.sampled = Downsampler.lttb(this.scores, threshold);
+            this.sampledThreshold = threshold;
         }
-        return maxScore;
+        return this.sampled;
+    }
+
+    /** Computes range of scores in one pass */
+    private void updateRange() {
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < this.scores.size(); i++) {
+            double score = this.scores.get(i);
+            min = Math.min(min, score);
+            max = Math.max(max, score);
+        }
+        if (this.scores.isEmpty()) {
+            min = 0;
+            max = 0;
+        }
+        this.minScore = min;
+        this.maxScore = max;
+
+        int longestLabel = 0;
+        for (int i = 0; i < numberYDivisions + 1; i++) {
+            longestLabel = Math.max(longestLabel, getYLabel(i).length());
+        }
+        this.yLabelsWidth = Math.max(labelPadding, longestLabel * LABEL_CHAR_WIDTH + 5);
+    }
+
+    private int getPlotLeft() {
+        return padding + yLabelsWidth;
+    }
+
+    private int getPlotRight(final int width) {
+        return width - padding;
+    }
+
+    private int getPlotTop() {
+        return padding;
+    }
+
+    private int getPlotBottom(final int height) {
+        return height - padding - labelPadding;
+    }
+
+    private double getX(final int index, final int width) {
+        double xScale = ((double) getPlotRight(width) - getPlotLeft()) / Math.max(scores.size() - 1, 1);
+        return index * xScale + getPlotLeft();
+    }
+
+    private double getY(final int index, final int height) {
+        // flat series is drawn at bottom of plot
+        double range = maxScore > minScore ? maxScore - minScore : 1;
+        double yScale = ((double) getPlotBottom(height) - getPlotTop()) / range;
+        return (maxScore - scores.get(index)) * yScale + getPlotTop()
+                + (maxScore > minScore ? 0 : getPlotBottom(height) - getPlotTop());
+    }
+
+    private int getYDivision(final int division, final int height) {
+        return height - ((division * (height - padding * 2 - labelPadding)) / numberYDivisions + padding + labelPadding);
+    }
+
+    private String getYLabel(final int division) {
+        return ((int) ((minScore + (maxScore - minScore) * ((division * 1.0) / numberYDivisions)) * 100)) / 100.0 + "";
+    }
+
+    /** Returns number of scores between x axis labels, at most {@link #numberXDivisions} labels which do not overlap */
+    private int getXLabelStep(final int width) {
+        double labelSpace = (String.valueOf(scores.size() - 1).length() + 3) * LABEL_CHAR_WIDTH;
+        int minStep = (int) Math.ceil(labelSpace / (getX(1, width) - getX(0, width)));
+        return Math.max((int) (scores.size() / (double) numberXDivisions) + 1, minStep);
+    }
+
+    private static void writeSvgLine(final Writer writer, final int x1, final int y1, final int x2, final int y2,
+                                     final Color color) throws IOException {
+        writer.write(String.format(Locale.ROOT, "<line x1=\"%d\" y1=\"%d\" x2=\"%d\" y2=\"%d\" %s/>\n", x1, y1, x2, y2,
+                getSvgColor("stroke", color)));
+    }
+
+    private static String getSvgColor(final String attribute, final Color color) {
+        return String.format(Locale.ROOT, "%s=\"rgb(%d,%d,%d)\" %s-opacity=\"%.2f\"", attribute, color.getRed(),
+                color.getGreen(), color.getBlue(), attribute, color.getAlpha() / 255.0);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,85 @@
+package pl.edu.agh.flowshop.utils;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps metrics in primitive arrays, growing as turns come. Meant for runs short enough to keep whole series,
+ * e.g. ones presented in {@link GraphPanel}.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+public class InMemoryMetricsSink implements MetricsSink {
+
+    /** Initial capacity of buffers */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private double[] queueSizes;
+
+    private int[] finishedOrders;
+
+    /** Number of accepted turns */
+    private int size;
+
+    public InMemoryMetricsSink() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /** Creates sink with buffers for given number of turns, e.g. turn limit */
+    public InMemoryMetricsSink(final int capacity) {
+        this.queueSizes = new double[Math.max(capacity, 1)];
+        this.finishedOrders = new int[Math.max(capacity, 1)];
+    }
+
+    @Override
+    public void accept(final int turnNo, final double queueSize, final int finishedOrders) {
+        if (this.size == this.queueSizes.length) {
+            int capacity = this.size * 2;
+            this.queueSizes = Arrays.copyOf(this.queueSizes, capacity);
+            this.finishedOrders = Arrays.copyOf(this.finishedOrders, capacity);
+        }
+        this.queueSizes[this.size] = queueSize;
+        this.finishedOrders[this.size] = finishedOrders;
+        this.size++;
+    }
+
+    @Override
+    public void close() {
+        // nothing to release
+    }
+
+    /** Returns number of accepted turns */
+    public int size() {
+        return this.size;
+    }
+
+    /** Returns queue sizes of all accepted turns */
+    public double[] getQueueSizes() {
+        return Arrays.copyOf(this.queueSizes, this.size);
+    }
+
+    /** Returns numbers of delivered orders after every accepted turn */
+    public int[] getFinishedOrders() {
+        return Arrays.copyOf(this.finishedOrders, this.size);
+    }
+
+    /** Returns read only view of queue sizes in form accepted by {@link GraphPanel} */
+    public List<Double> getQueueSizesList() {
+        return new AbstractList<Double>() {
+            @Override
+            public Double get(final int index) {
+                if (index >= size) {
+                    throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+                }
+                return queueSizes[index];
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+}
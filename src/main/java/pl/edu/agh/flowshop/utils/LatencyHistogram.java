@@ -0,0 +1,132 @@
+package pl.edu.agh.flowshop.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free histogram of non negative values, used for latencies in nanoseconds.
+ * </br>
+ * Values are counted in log-linear buckets: every power of two range is split into {@link #SUB_BUCKETS} equal
+ * buckets, so percentiles are exact up to {@link #SUB_BUCKETS} and have relative error below 1 / {@link #SUB_BUCKETS}
+ * above it. Recording is few atomic increments, so histogram can be updated from many threads and read while it is
+ * updated; values read during updates may be off by values recorded in the meantime.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+public class LatencyHistogram {
+
+    /** Number of bits of value kept below its highest bit */
+    private static final int SUB_BUCKET_BITS = 4;
+
+    /** Number of buckets every power of two range is split into */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /** Enough buckets for every non negative long */
+    private static final int BUCKETS_NO = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS_NO);
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong sum = new AtomicLong();
+
+    private final AtomicLong max = new AtomicLong();
+
+    /** Records value, negative values are recorded as 0 */
+    public void record(final long value) {
+        long recorded = Math.max(value, 0);
+        this.buckets.incrementAndGet(getBucket(recorded));
+        this.count.incrementAndGet();
+        this.sum.addAndGet(recorded);
+        long currentMax;
+        while (recorded > (currentMax = this.max.get()) && !this.max.compareAndSet(currentMax, recorded)) {
+            // another thread updated maximum, compare again
+        }
+    }
+
+    /** Returns number of recorded values */
+    public long getCount() {
+        return this.count.get();
+    }
+
+    /** Returns sum of recorded values */
+    public long getSum() {
+        return this.sum.get();
+    }
+
+    /** Returns largest recorded value, 0 if there is none */
+    public long getMax() {
+        return this.max.get();
+    }
+
+    /** Returns mean of recorded values, 0 if there is none */
+    public double getMean() {
+        long recordedNo = this.count.get();
+        return recordedNo == 0 ? 0 : (double) this.sum.get() / recordedNo;
+    }
+
+    /**
+     * Returns value below or equal to which given percent of recorded values are, rounded up to upper bound of its
+     * bucket
+     *
+     * @param percentile percent of values, from 0 to 100
+     * @return percentile value, 0 if nothing was recorded
+     */
+    public long getPercentile(final double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be in [0, 100], got: " + percentile);
+        }
+
+        long[] counts = new long[BUCKETS_NO];
+        long total = 0;
+        for (int i = 0; i < BUCKETS_NO; i++) {
+            counts[i] = this.buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max((long) Math.ceil(percentile / 100 * total), 1);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS_NO; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(getUpperBound(i), this.max.get());
+            }
+        }
+        return this.max.get();
+    }
+
+    /** Clears recorded values */
+    public void reset() {
+        for (int i = 0; i < BUCKETS_NO; i++) {
+            this.buckets.set(i, 0);
+        }
+        this.count.set(0);
+        this.sum.set(0);
+        this.max.set(0);
+    }
+
+    /** Returns bucket of non negative value */
+    private static int getBucket(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int highestBit = 63 - Long.numberOfLeadingZeros(value);
+        int shift = highestBit - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /** Returns largest value counted in given bucket */
+    private static long getUpperBound(final int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowerBound = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,24 @@
+package pl.edu.agh.flowshop.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Receiver of per turn metrics pushed by {@link pl.edu.agh.flowshop.engine.Model} main loop while it runs, so metrics
+ * of long runs do not have to be kept in memory. Sink is owned and closed by one who passed it to model.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+public interface MetricsSink extends Closeable {
+
+    /**
+     * Accepts metrics of one turn, turns come in increasing order without gaps, starting from 0 or from turn of
+     * checkpoint run was resumed from
+     *
+     * @param turnNo         turn number
+     * @param queueSize      number of products in all queues at end of turn
+     * @param finishedOrders number of orders delivered since start of run
+     */
+    void accept(int turnNo, double queueSize, int finishedOrders) throws IOException;
+}
@@ -5,7 +5,7 @@ import pl.edu.agh.flowshop.entity.Order;
 import java.util.Comparator;
 
 /**
- * Orders comparator
+ * Orders comparator, orders with higher priority first and orders with same priority in order of generation.
  *
  * @author Bartosz Sądel
  *         Created on 19.03.2016.
@@ -15,6 +15,7 @@ public class OrderComparator implements Comparator<Order> {
     @Override
     public int compare(final Order o1, final Order o2) {
         /* Sorting from least to greatest, for priority queue to work right */
-        return o2.getPriority() - o1.getPriority();
+        int result = Integer.compare(o2.getPriority(), o1.getPriority());
+        return result != 0 ? result : Long.compare(o1.getNumber(), o2.getNumber());
     }
 }
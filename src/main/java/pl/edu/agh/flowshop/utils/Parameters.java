@@ -1,9 +1,17 @@
 package pl.edu.agh.flowshop.utils;
 
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import pl.edu.agh.flowshop.engine.TrajectoryRecorder;
+
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Random;
+import java.util.TreeSet;
 
 /**
  * Experiment parameters container
@@ -11,43 +19,7 @@ import java.util.Properties;
  * @author Bartosz
  *         Created on 2016-03-15.
  */
-public abstract class Parameters {
-
-    /** Learning turn value in properties file. */
-    public static final int LEARNING_TURN;
-
-    /** Turn limit value in properties file. */
-    public static final int TURN_LIMIT;
-
-    /** Queue size value in properties file. */
-    public static final int QUEUE_SIZE;
-
-    /** Reward for completion od order */
-    public static final int REWARD;
-
-    /** Penalty for not completing order in time */
-    public static final double PENALTY;
-
-    /** Product types no. value in properties file. */
-    public static final int PRODUCT_TYPES_NO;
-
-    /** Threshold for decision between good and bad labels */
-    public static final int DECISION_THRESHOLD;
-
-    /** Lenght of history entries used for learning */
-    public static final int USED_HISTORY;
-
-    /** Parameter lambda used for Watkins and Peng algorithms */
-    public static final double LAMBDA;
-
-    /** Parameter epsilon used for Watkins and Peng algorithms */
-    public static final double EPSILON;
-
-    /** Parameter gamma used for Watkins and Peng algorithms */
-    public static final double GAMMA;
-
-    /** Products unit costs */
-    public static final Map<Integer, Integer> COSTS;
+public class Parameters {
 
     /** Key for learning turn value in properties file. */
     private static final String LEARNING_TURN_KEY = "LEARNING_TURN";
@@ -85,44 +57,406 @@ public abstract class Parameters {
     /** Parameter gamma used for Watkins and Peng algorithms */
     private static final String GAMMA_KEY = "GAMMA";
 
+    /** Key of flag moving classifiers training to background threads */
+    private static final String BACKGROUND_TRAINING_KEY = "BACKGROUND_TRAINING";
+
+    /** Key of interval of learning turns at which background training is waited for */
+    private static final String TRAINING_BARRIER_KEY = "TRAINING_BARRIER";
+
+    /** Key of number of background training threads */
+    private static final String TRAINING_THREADS_KEY = "TRAINING_THREADS";
+
+    /** Key of flag switching main loop to event driven mode, which skips turns in which nothing happens */
+    private static final String EVENT_DRIVEN_KEY = "EVENT_DRIVEN";
+
+    /** Key of flag enabling parallel decisions of machines of large layers */
+    private static final String PARALLEL_DECISIONS_KEY = "PARALLEL_DECISIONS";
+
+    /** Key of number of threads computing parallel decisions */
+    private static final String DECISION_THREADS_KEY = "DECISION_THREADS";
+
+    /** Key of flag running every layer on its own thread, see {@link pl.edu.agh.flowshop.engine.LayerPipeline} */
+    private static final String PIPELINED_LAYERS_KEY = "PIPELINED_LAYERS";
+
+    /** Key of machines config file, machines.json from resources is used when missing */
+    private static final String MACHINES_FILE_KEY = "MACHINES_FILE";
+
+    /** Key of number of features from which models use sparse representations */
+    private static final String SPARSE_THRESHOLD_KEY = "SPARSE_THRESHOLD";
+
+    /** Default number of features from which models use sparse representations */
+    private static final int DEFAULT_SPARSE_THRESHOLD = 2048;
+
+    /** Key of directory where binary traces of runs are recorded, tracing is disabled when missing */
+    private static final String TRACE_DIR_KEY = "TRACE_DIR";
+
+    /** Key of file metrics of single run are streamed to, CSV if name ends with .csv, binary otherwise */
+    private static final String METRICS_FILE_KEY = "METRICS_FILE";
+
+    /** Key of flag enabling timing of main loop phases, see {@link pl.edu.agh.flowshop.engine.PhaseTimers} */
+    private static final String PHASE_TIMING_KEY = "PHASE_TIMING";
+
+    /** Key of file chart of experiment is exported to instead of being shown, SVG if name ends with .svg, PNG otherwise */
+    private static final String CHART_FILE_KEY = "CHART_FILE";
+
+    /** Key of directory where checkpoints of runs are written, checkpoints are disabled when missing */
+    private static final String CHECKPOINT_DIR_KEY = "CHECKPOINT_DIR";
+
+    /** Key of number of turns between checkpoints */
+    private static final String CHECKPOINT_INTERVAL_KEY = "CHECKPOINT_INTERVAL";
+
+    /** Default number of turns between checkpoints */
+    private static final int DEFAULT_CHECKPOINT_INTERVAL = 10000;
+
+    /** Key of directory policies of machines are exported to at end of run, nothing is exported when missing */
+    private static final String POLICY_DIR_KEY = "POLICY_DIR";
+
+    /** Key of directory where learning trajectories of runs are recorded, nothing is recorded when missing */
+    private static final String TRAJECTORY_DIR_KEY = "TRAJECTORY_DIR";
+
+    /** Key of format of recorded trajectories, see {@link pl.edu.agh.flowshop.engine.TrajectoryRecorder} */
+    private static final String TRAJECTORY_FORMAT_KEY = "TRAJECTORY_FORMAT";
+
+    /** Key of experiment seed, random one is used when missing */
+    private static final String SEED_KEY = "SEED";
+
     /** File with experiment configuration */
     private static final String PROPERTIES_FILE_KEY = "flowshop.properties";
 
-    static {
-        Properties configuration = new Properties();
-        getConfig(configuration);
-
-        LEARNING_TURN = Integer.parseInt(configuration.getProperty(LEARNING_TURN_KEY));
-        TURN_LIMIT = Integer.parseInt(configuration.getProperty(TURN_LIMIT_KEY));
-        QUEUE_SIZE = Integer.parseInt(configuration.getProperty(QUEUE_SIZE_KEY));
-        PRODUCT_TYPES_NO = Integer.parseInt(configuration.getProperty(PRODUCT_TYPES_NO_KEY));
-        REWARD = Integer.parseInt(configuration.getProperty(REWARD_KEY));
-        DECISION_THRESHOLD = Integer.parseInt(configuration.getProperty(DECISION_THRESHOLD_KEY));
-        PENALTY = Double.parseDouble(configuration.getProperty(PENALTY_KEY));
-        USED_HISTORY = Integer.parseInt(configuration.getProperty(USED_HISTORY_KEY));
-        LAMBDA = configuration.getProperty(LAMBDA_KEY) != null ?
-                Double.parseDouble(configuration.getProperty(LAMBDA_KEY)) : 0.5;
-        EPSILON = configuration.getProperty(LAMBDA_KEY) != null ?
-                Double.parseDouble(configuration.getProperty(LAMBDA_KEY)) : 0.9;
-        GAMMA = configuration.getProperty(LAMBDA_KEY) != null ?
-                Double.parseDouble(configuration.getProperty(LAMBDA_KEY)) : 0.9;
-
-        COSTS = new HashMap<>();
-        for (int i = 0; i < PRODUCT_TYPES_NO; i++) {
-            COSTS.put(i, Integer.valueOf(configuration.getProperty(PRODUCT_PRICE_KEY + i)));
+    /** Learning turn value in properties file. */
+    private final int learningTurn;
+
+    /** Turn limit value in properties file. */
+    private final int turnLimit;
+
+    /** Queue size value in properties file. */
+    private final int queueSize;
+
+    /** Reward for completion od order */
+    private final int reward;
+
+    /** Penalty for not completing order in time */
+    private final double penalty;
+
+    /** Product types no. value in properties file. */
+    private final int productTypesNo;
+
+    /** Threshold for decision between good and bad labels */
+    private final int decisionThreshold;
+
+    /** Lenght of history entries used for learning */
+    private final int usedHistory;
+
+    /** Parameter lambda used for Watkins and Peng algorithms */
+    private final double lambda;
+
+    /** Parameter epsilon used for Watkins and Peng algorithms */
+    private final double epsilon;
+
+    /** Parameter gamma used for Watkins and Peng algorithms */
+    private final double gamma;
+
+    /** Products unit costs */
+    private final Map<Integer, Integer> costs;
+
+    /** Experiment seed, all random streams of model are derived from it */
+    private final long seed;
+
+    /** True if classifiers should be trained in background */
+    private final boolean backgroundTraining;
+
+    /**
+     * Interval in turns at which main loop waits for background training started in learning turn, 0 to never wait.
+     * Setting it to learning turn value gives same results as synchronous training.
+     */
+    private final int trainingBarrier;
+
+    /** Number of background training threads */
+    private final int trainingThreads;
+
+    /** True if main loop should jump between events instead of simulating every turn */
+    private final boolean eventDriven;
+
+    /** True if machines of large layers decide in parallel, with the same results as sequentially */
+    private final boolean parallelDecisions;
+
+    /** Number of threads computing parallel decisions */
+    private final int decisionThreads;
+
+    /** True if layers work on consecutive turns at once, decisions see older state of downstream layers */
+    private final boolean pipelinedLayers;
+
+    /** Machines config file, null if machines.json from resources is used */
+    private final String machinesFile;
+
+    /** Number of features from which models use sparse representations, 0 if they never do */
+    private final int sparseThreshold;
+
+    /** Directory of binary traces, null if tracing is disabled */
+    private final String traceDir;
+
+    /** File metrics of single run are streamed to, null if metrics are kept in memory */
+    private final String metricsFile;
+
+    /** True if phases of main loop are timed */
+    private final boolean phaseTiming;
+
+    /** File chart is exported to, null if chart is shown in window */
+    private final String chartFile;
+
+    /**
+     * Directory of checkpoints, null if checkpoints are disabled. Run resumes from checkpoint of its seed and
+     * configuration found there, so directory can be shared by runs of different configurations.
+     */
+    private final String checkpointDir;
+
+    /** Number of turns between checkpoints */
+    private final int checkpointInterval;
+
+    /** Directory policies are exported to, null if they are not exported */
+    private final String policyDir;
+
+    /** Directory of learning trajectories, null if they are not recorded */
+    private final String trajectoryDir;
+
+    /** Format of learning trajectories, binary by default */
+    private final String trajectoryFormat;
+
+    /** Hash of all entries of configuration */
+    private final long configurationHash;
+
+    /** Creates parameters from given configuration, each model should get its own or share immutable one */
+    public Parameters(final Properties configuration) {
+        learningTurn = Integer.parseInt(configuration.getProperty(LEARNING_TURN_KEY).trim());
+        turnLimit = Integer.parseInt(configuration.getProperty(TURN_LIMIT_KEY).trim());
+        queueSize = Integer.parseInt(configuration.getProperty(QUEUE_SIZE_KEY).trim());
+        productTypesNo = Integer.parseInt(configuration.getProperty(PRODUCT_TYPES_NO_KEY).trim());
+        reward = Integer.parseInt(configuration.getProperty(REWARD_KEY).trim());
+        decisionThreshold = Integer.parseInt(configuration.getProperty(DECISION_THRESHOLD_KEY).trim());
+        penalty = Double.parseDouble(configuration.getProperty(PENALTY_KEY).trim());
+        usedHistory = Integer.parseInt(configuration.getProperty(USED_HISTORY_KEY).trim());
+        lambda = getDouble(configuration, LAMBDA_KEY, 0.5);
+        epsilon = getDouble(configuration, EPSILON_KEY, 0.9);
+        gamma = getDouble(configuration, GAMMA_KEY, 0.9);
+
+        Map<Integer, Integer> productCosts = new HashMap<>();
+        for (int i = 0; i < productTypesNo; i++) {
+            productCosts.put(i, Integer.valueOf(configuration.getProperty(PRODUCT_PRICE_KEY + i).trim()));
+        }
+        costs = Collections.unmodifiableMap(productCosts);
+
+        String seedValue = getOptionalString(configuration, SEED_KEY);
+        seed = seedValue != null ? Long.parseLong(seedValue) : new Random().nextLong();
+        backgroundTraining = getBoolean(configuration, BACKGROUND_TRAINING_KEY);
+        trainingBarrier = getInt(configuration, TRAINING_BARRIER_KEY, 0);
+        trainingThreads = getInt(configuration, TRAINING_THREADS_KEY, Runtime.getRuntime().availableProcessors());
+        eventDriven = getBoolean(configuration, EVENT_DRIVEN_KEY);
+        parallelDecisions = getBoolean(configuration, PARALLEL_DECISIONS_KEY);
+        decisionThreads = getInt(configuration, DECISION_THREADS_KEY, Runtime.getRuntime().availableProcessors());
+        pipelinedLayers = getBoolean(configuration, PIPELINED_LAYERS_KEY);
+        machinesFile = getOptionalString(configuration, MACHINES_FILE_KEY);
+        sparseThreshold = getInt(configuration, SPARSE_THRESHOLD_KEY, DEFAULT_SPARSE_THRESHOLD);
+        traceDir = getOptionalString(configuration, TRACE_DIR_KEY);
+        metricsFile = getOptionalString(configuration, METRICS_FILE_KEY);
+        phaseTiming = getBoolean(configuration, PHASE_TIMING_KEY);
+        chartFile = getOptionalString(configuration, CHART_FILE_KEY);
+        checkpointDir = getOptionalString(configuration, CHECKPOINT_DIR_KEY);
+        if (checkpointDir != null && seedValue == null) {
+            // random seed differs after restart, so checkpoint named after it would never be found
+            throw new IllegalArgumentException(CHECKPOINT_DIR_KEY + " requires " + SEED_KEY
+                    + " to be set, runs with random seed can not resume from checkpoints.");
         }
+        checkpointInterval = getInt(configuration, CHECKPOINT_INTERVAL_KEY, DEFAULT_CHECKPOINT_INTERVAL);
+        policyDir = getOptionalString(configuration, POLICY_DIR_KEY);
+        trajectoryDir = getOptionalString(configuration, TRAJECTORY_DIR_KEY);
+        String format = getOptionalString(configuration, TRAJECTORY_FORMAT_KEY);
+        trajectoryFormat = format != null ? format.toLowerCase() : TrajectoryRecorder.BINARY;
+        configurationHash = hash(configuration);
     }
 
-    private Parameters() {
+    /** Creates parameters based on default configuration file */
+    public static Parameters load() {
+        return new Parameters(loadProperties());
+    }
+
+    /** Returns trimmed value of key, null if it is not set or empty */
+    private static String getOptionalString(final Properties configuration, final String key) {
+        String value = configuration.getProperty(key);
+        if (value == null) {
+            return null;
+        }
+        value = value.trim();
+        return value.isEmpty() ? null : value;
     }
 
-    /** Reads configuration from file */
-    private static void getConfig(final Properties properties) {
+    /** Returns value of key, default value if it is not set or empty */
+    private static int getInt(final Properties configuration, final String key, final int defaultValue) {
+        String value = getOptionalString(configuration, key);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    /** Returns value of key, default value if it is not set or empty */
+    private static double getDouble(final Properties configuration, final String key, final double defaultValue) {
+        String value = getOptionalString(configuration, key);
+        return value != null ? Double.parseDouble(value) : defaultValue;
+    }
+
+    /** Returns value of key, false if it is not set */
+    private static boolean getBoolean(final Properties configuration, final String key) {
+        return Boolean.parseBoolean(getOptionalString(configuration, key));
+    }
+
+    /** Hashes entries of configuration sorted by key, so hash does not depend on their order */
+    private static long hash(final Properties configuration) {
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        for (String key : new TreeSet<>(configuration.stringPropertyNames())) {
+            hasher.putString(key, StandardCharsets.UTF_8).putByte((byte) 0)
+                    .putString(configuration.getProperty(key).trim(), StandardCharsets.UTF_8).putByte((byte) 0);
+        }
+        return hasher.hash().asLong();
+    }
+
+    /** Reads configuration from default file */
+    public static Properties loadProperties() {
+        Properties properties = new Properties();
         try {
             properties.load(new ResourceFileReader().getResourcesFileStream(PROPERTIES_FILE_KEY));
         } catch (IOException e) {
             e.printStackTrace();
         }
+        return properties;
+    }
+
+    public int getLearningTurn() {
+        return learningTurn;
+    }
+
+    public int getTurnLimit() {
+        return turnLimit;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public int getReward() {
+        return reward;
+    }
+
+    public double getPenalty() {
+        return penalty;
+    }
+
+    public int getProductTypesNo() {
+        return productTypesNo;
+    }
+
+    public int getDecisionThreshold() {
+        return decisionThreshold;
+    }
+
+    public int getUsedHistory() {
+        return usedHistory;
+    }
+
+    public double getLambda() {
+        return lambda;
+    }
+
+    public double getEpsilon() {
+        return epsilon;
+    }
+
+    public double getGamma() {
+        return gamma;
+    }
+
+    public Map<Integer, Integer> getCosts() {
+        return costs;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns hash of all entries of configuration parameters were created from, parameters created from
+     * configurations differing in any value have different hashes
+     */
+    public long getConfigurationHash() {
+        return configurationHash;
+    }
+
+    public boolean isBackgroundTraining() {
+        return backgroundTraining;
+    }
+
+    public int getTrainingBarrier() {
+        return trainingBarrier;
+    }
+
+    public int getTrainingThreads() {
+        return trainingThreads;
+    }
+
+    public boolean isEventDriven() {
+        return eventDriven;
+    }
+
+    public boolean isParallelDecisions() {
+        return parallelDecisions;
+    }
+
+    public int getDecisionThreads() {
+        return decisionThreads;
+    }
+
+    public boolean isPipelinedLayers() {
+        return pipelinedLayers;
+    }
+
+    public String getMachinesFile() {
+        return machinesFile;
+    }
+
+    public int getSparseThreshold() {
+        return sparseThreshold;
+    }
+
+    public String getTraceDir() {
+        return traceDir;
+    }
+
+    public String getMetricsFile() {
+        return metricsFile;
+    }
+
+    public boolean isPhaseTiming() {
+        return phaseTiming;
+    }
+
+    public String getChartFile() {
+        return chartFile;
+    }
+
+    public String getCheckpointDir() {
+        return checkpointDir;
+    }
+
+    public int getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    public String getPolicyDir() {
+        return policyDir;
+    }
+
+    public String getTrajectoryDir() {
+        return trajectoryDir;
+    }
+
+    public String getTrajectoryFormat() {
+        return trajectoryFormat;
     }
 
 }
@@ -0,0 +1,80 @@
+package pl.edu.agh.flowshop.utils;
+
+/**
+ * Source of independent random streams derived from one experiment seed.
+ * </br>
+ * Each stream is identified by its name and index (e.g. machine id), and its seed is derived from experiment seed with
+ * SplitMix64 mixing, so streams do not overlap in practice and same seed always gives same streams. Streams are meant
+ * to be created once and owned by single component, so no generator is shared between threads. Generators are
+ * {@link StreamRandom}, so their state can be checkpointed.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+public class RandomStreams {
+
+    /** Stream used for order contents, rewards and due times */
+    public static final String ORDERS = "orders";
+
+    /** Stream used for order arrival process */
+    public static final String ARRIVALS = "arrivals";
+
+    /** Stream used for machine breakdowns, one per machine */
+    public static final String BREAKDOWNS = "breakdowns";
+
+    /** Stream used for agents exploration, one per machine */
+    public static final String EXPLORATION = "exploration";
+
+    /** Stream used for model history labels */
+    public static final String HISTORY = "history";
+
+    /** Stream used for sampling kept training examples, one per machine */
+    public static final String RETENTION = "retention";
+
+    /** Stream used for splitting seeds of replications */
+    public static final String REPLICATIONS = "replications";
+
+    /** Golden ratio increment used by SplitMix64 */
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    /** Experiment seed */
+    private final long seed;
+
+    public RandomStreams(final long seed) {
+        this.seed = seed;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /** Creates new generator of stream with given name and index */
+    public StreamRandom stream(final String name, final int index) {
+        return new StreamRandom(deriveSeed(name, index));
+    }
+
+    /** Creates new generator of stream with given name */
+    public StreamRandom stream(final String name) {
+        return stream(name, 0);
+    }
+
+    /** Creates independent streams source, e.g. for one of many replications */
+    public RandomStreams split(final String name, final int index) {
+        return new RandomStreams(deriveSeed(name, index));
+    }
+
+    /** Derives seed of stream from experiment seed, stream name and index */
+    private long deriveSeed(final String name, final int index) {
+        long result = mix64(seed + GOLDEN_GAMMA);
+        result = mix64(result ^ (name.hashCode() * GOLDEN_GAMMA));
+        return mix64(result ^ ((index + 1L) * GOLDEN_GAMMA));
+    }
+
+    /** SplitMix64 finalizer */
+    private static long mix64(final long value) {
+        long z = value;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,74 @@
+package pl.edu.agh.flowshop.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded lock free queue for exactly one producer thread and one consumer thread.
+ * </br>
+ * Elements are kept in ring of power of two size. Producer owns tail and consumer owns head, each index is written
+ * only by its owner with ordered store and read by the other side, so handoff costs no locks nor CAS. Methods do not
+ * block, waiting for space or elements is left to caller.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+public class SpscQueue<E> {
+
+    private final Object[] elements;
+
+    private final int mask;
+
+    /** Number of next element to take, written by consumer */
+    private final AtomicLong head = new AtomicLong();
+
+    /** Number of next element to put, written by producer */
+    private final AtomicLong tail = new AtomicLong();
+
+    /** Creates queue holding at least given number of elements */
+    public SpscQueue(final int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Queue capacity must be between 1 and 2^30, got: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.elements = new Object[size];
+        this.mask = size - 1;
+    }
+
+    /** Adds element if there is space for it, called by producer only */
+    public boolean offer(final E element) {
+        long tail = this.tail.get();
+        if (tail - this.head.get() == this.elements.length) {
+            return false;
+        }
+        this.elements[(int) tail & this.mask] = element;
+        // element is published to consumer together with index
+        this.tail.lazySet(tail + 1);
+        return true;
+    }
+
+    /** Removes and returns oldest element, null if queue is empty, called by consumer only */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long head = this.head.get();
+        if (head == this.tail.get()) {
+            return null;
+        }
+        int index = (int) head & this.mask;
+        E element = (E) this.elements[index];
+        this.elements[index] = null;
+        this.head.lazySet(head + 1);
+        return element;
+    }
+
+    /** Returns number of elements, exact only when called by producer or consumer while the other one is idle */
+    public int size() {
+        return (int) (this.tail.get() - this.head.get());
+    }
+
+    public int capacity() {
+        return this.elements.length;
+    }
+}
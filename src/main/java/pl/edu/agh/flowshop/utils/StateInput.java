@@ -0,0 +1,147 @@
+package pl.edu.agh.flowshop.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads state written by {@link StateOutput}, values are read in the same order they were written.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+public class StateInput {
+
+    /** Primitive section */
+    private final ByteBuffer buffer;
+
+    /** Objects written by reference, indexed in order of writing */
+    private final List<Object> objects;
+
+    private StateInput(final ByteBuffer buffer, final List<Object> objects) {
+        this.buffer = buffer;
+        this.objects = objects;
+    }
+
+    /** Reads state from channel, channel is left open */
+    public static StateInput read(final ReadableByteChannel channel) throws IOException {
+        ByteBuffer length = ByteBuffer.allocate(4);
+        readFully(channel, length);
+        ByteBuffer buffer = ByteBuffer.allocate(length.getInt());
+        readFully(channel, buffer);
+
+        ObjectInputStream input = new ObjectInputStream(Channels.newInputStream(channel));
+        int objectsNo = input.readInt();
+        List<Object> objects = new ArrayList<>(objectsNo);
+        try {
+            for (int i = 0; i < objectsNo; i++) {
+                objects.add(input.readObject());
+            }
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unknown class of checkpointed object.", e);
+        }
+        return new StateInput(buffer, objects);
+    }
+
+    public int getInt() {
+        return this.buffer.getInt();
+    }
+
+    public long getLong() {
+        return this.buffer.getLong();
+    }
+
+    public double getDouble() {
+        return this.buffer.getDouble();
+    }
+
+    public boolean getBoolean() {
+        return this.buffer.get() != 0;
+    }
+
+    public int[] getInts() {
+        int[] result = new int[this.buffer.getInt()];
+        this.buffer.asIntBuffer().get(result);
+        this.buffer.position(this.buffer.position() + 4 * result.length);
+        return result;
+    }
+
+    /** Reads array into given one, which must be of written length */
+    public void getInts(final int[] target) throws IOException {
+        int length = this.buffer.getInt();
+        if (length != target.length) {
+            throw new IOException("Expected " + target.length + " values, got " + length);
+        }
+        this.buffer.asIntBuffer().get(target);
+        this.buffer.position(this.buffer.position() + 4 * length);
+    }
+
+    public byte[] getBytes() {
+        byte[] result = new byte[this.buffer.getInt()];
+        this.buffer.get(result);
+        return result;
+    }
+
+    public String getString() {
+        return new String(getBytes(), StandardCharsets.UTF_8);
+    }
+
+    /** Restores state of given generator in place */
+    public void getRandom(final StreamRandom random) {
+        random.setState(getLong(), getDouble(), getBoolean());
+    }
+
+    /** Reads object written with {@link StateOutput#putObject(Object)} */
+    public Object getObject() {
+        return this.objects.get(this.buffer.getInt());
+    }
+
+    /**
+     * Reads object written with {@link StateOutput#putCopy(Object, Object...)}, references to external objects are
+     * resolved to given ones
+     */
+    public Object getCopy(final Object... externals) throws IOException {
+        try (ObjectInputStream input = new ExternalsInputStream(new ByteArrayInputStream(getBytes()), externals)) {
+            return input.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unknown class of checkpointed object.", e);
+        }
+    }
+
+    private static void readFully(final ReadableByteChannel channel, final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Checkpoint ended unexpectedly.");
+            }
+        }
+        buffer.flip();
+    }
+
+    /** Serialization stream resolving references to external objects */
+    private static class ExternalsInputStream extends ObjectInputStream {
+
+        private final Object[] externals;
+
+        private ExternalsInputStream(final InputStream input, final Object[] externals) throws IOException {
+            super(input);
+            this.externals = externals;
+            enableResolveObject(true);
+        }
+
+        @Override
+        protected Object resolveObject(final Object object) throws IOException {
+            if (object instanceof StateOutput.ExternalReference) {
+                return this.externals[((StateOutput.ExternalReference) object).index];
+            }
+            return object;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package pl.edu.agh.flowshop.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects state of simulation for checkpoint, read back with {@link StateInput}.
+ * </br>
+ * Primitive values are written into growing buffer right away. Objects are either kept by reference and serialized
+ * only in {@link #writeTo(WritableByteChannel)}, which may run in background, so they must not be modified anymore
+ * (see {@link #putObject(Object)}), or serialized at once, which copies them (see {@link #putCopy(Object, Object...)}).
+ * Written state consists of length of primitive section, the section itself and Java serialization stream of objects
+ * kept by reference.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+public class StateOutput {
+
+    private static final int INITIAL_CAPACITY = 4096;
+
+    /** Primitive section */
+    private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_CAPACITY);
+
+    /** Objects serialized when state is written */
+    private final List<Object> objects = new ArrayList<>();
+
+    public StateOutput putInt(final int value) {
+        ensureCapacity(4);
+        this.buffer.putInt(value);
+        return this;
+    }
+
+    public StateOutput putLong(final long value) {
+        ensureCapacity(8);
+        this.buffer.putLong(value);
+        return this;
+    }
+
+    public StateOutput putDouble(final double value) {
+        ensureCapacity(8);
+        this.buffer.putDouble(value);
+        return this;
+    }
+
+    public StateOutput putBoolean(final boolean value) {
+        ensureCapacity(1);
+        this.buffer.put((byte) (value ? 1 : 0));
+        return this;
+    }
+
+    /** Writes length of array followed by its values */
+    public StateOutput putInts(final int[] values) {
+        return putInts(values, values.length);
+    }
+
+    /** Writes given length followed by that many first values of array */
+    public StateOutput putInts(final int[] values, final int length) {
+        ensureCapacity(4 + 4 * length);
+        this.buffer.putInt(length);
+        this.buffer.asIntBuffer().put(values, 0, length);
+        this.buffer.position(this.buffer.position() + 4 * length);
+        return this;
+    }
+
+    public StateOutput putBytes(final byte[] values) {
+        ensureCapacity(4 + values.length);
+        this.buffer.putInt(values.length);
+        this.buffer.put(values);
+        return this;
+    }
+
+    public StateOutput putString(final String value) {
+        return putBytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Writes state of generator */
+    public StateOutput putRandom(final StreamRandom random) {
+        return putLong(random.getState()).putDouble(random.getNextNextGaussian())
+                .putBoolean(random.hasNextNextGaussian());
+    }
+
+    /**
+     * Writes object which is serialized only when state is written, possibly by other thread. Object and everything
+     * it refers to must not be modified afterwards.
+     */
+    public StateOutput putObject(final Object object) {
+        putInt(this.objects.size());
+        this.objects.add(object);
+        return this;
+    }
+
+    /**
+     * Serializes object at once, so it may be modified afterwards. Given external objects, which can not or should
+     * not be serialized, are written as references and must be passed in the same order to
+     * {@link StateInput#getCopy(Object...)}.
+     */
+    public StateOutput putCopy(final Object object, final Object... externals) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ExternalsOutputStream(bytes, externals)) {
+            output.writeObject(object);
+        }
+        return putBytes(bytes.toByteArray());
+    }
+
+    /** Writes collected state to channel */
+    public void writeTo(final WritableByteChannel channel) throws IOException {
+        ByteBuffer length = ByteBuffer.allocate(4);
+        length.putInt(this.buffer.position()).flip();
+        writeFully(channel, length);
+        ByteBuffer primitives = this.buffer.duplicate();
+        primitives.flip();
+        writeFully(channel, primitives);
+
+        // channel stream is not closed, channel is owned by caller
+        ObjectOutputStream output = new ObjectOutputStream(Channels.newOutputStream(channel));
+        output.writeInt(this.objects.size());
+        for (Object object : this.objects) {
+            output.writeObject(object);
+        }
+        output.flush();
+    }
+
+    /** Returns size of primitive section in bytes */
+    public int getPrimitivesSize() {
+        return this.buffer.position();
+    }
+
+    private void ensureCapacity(final int bytes) {
+        if (this.buffer.remaining() >= bytes) {
+            return;
+        }
+        long required = (long) this.buffer.position() + bytes;
+        int capacity = (int) Math.min(Math.max((long) this.buffer.capacity() * 2, required), Integer.MAX_VALUE - 8);
+        if (capacity < required) {
+            throw new IllegalStateException("State does not fit into " + capacity + " bytes.");
+        }
+        ByteBuffer grown = ByteBuffer.allocate(capacity);
+        this.buffer.flip();
+        grown.put(this.buffer);
+        this.buffer = grown;
+    }
+
+    private static void writeFully(final WritableByteChannel channel, final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /** Reference to external object written instead of it */
+    static final class ExternalReference implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /** Index of object in externals */
+        final int index;
+
+        ExternalReference(final int index) {
+            this.index = index;
+        }
+    }
+
+    /** Serialization stream replacing external objects with references */
+    private static class ExternalsOutputStream extends ObjectOutputStream {
+
+        private final Map<Object, Integer> externals = new IdentityHashMap<>();
+
+        private ExternalsOutputStream(final OutputStream output, final Object[] externals) throws IOException {
+            super(output);
+            for (int i = 0; i < externals.length; i++) {
+                if (externals[i] != null) {
+                    this.externals.put(externals[i], i);
+                }
+            }
+            enableReplaceObject(!this.externals.isEmpty());
+        }
+
+        @Override
+        protected Object replaceObject(final Object object) throws IOException {
+            Integer index = this.externals.get(object);
+            return index != null ? new ExternalReference(index) : object;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package pl.edu.agh.flowshop.utils;
+
+import java.util.Random;
+
+/**
+ * Generator of random stream which state can be read and restored, so checkpointed run continues with the same
+ * numbers. Generates exactly the same sequence as {@link Random} created with the same seed.
+ * </br>
+ * Generator is restored in place, so objects sharing it, like piqle selectors, keep using the same instance.
+ * Like every stream, it is owned by single component and is not thread safe.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+public class StreamRandom extends Random {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+
+    private static final long ADDEND = 0xBL;
+
+    private static final long MASK = (1L << 48) - 1;
+
+    /** State of linear congruential generator, set by constructor of {@link Random} through {@link #setSeed(long)} */
+    private long state;
+
+    /** Second of gaussian values generated in pairs */
+    private double nextNextGaussian;
+
+    private boolean haveNextNextGaussian;
+
+    public StreamRandom(final long seed) {
+        super(seed);
+    }
+
+    @Override
+    public void setSeed(final long seed) {
+        this.state = (seed ^ MULTIPLIER) & MASK;
+        this.haveNextNextGaussian = false;
+    }
+
+    @Override
+    protected int next(final int bits) {
+        this.state = (this.state * MULTIPLIER + ADDEND) & MASK;
+        return (int) (this.state >>> (48 - bits));
+    }
+
+    /** Same polar method as {@link Random#nextGaussian()}, with cached value kept as part of state */
+    @Override
+    public double nextGaussian() {
+        if (this.haveNextNextGaussian) {
+            this.haveNextNextGaussian = false;
+            return this.nextNextGaussian;
+        }
+        double v1;
+        double v2;
+        double s;
+        do {
+            v1 = 2 * nextDouble() - 1;
+            v2 = 2 * nextDouble() - 1;
+            s = v1 * v1 + v2 * v2;
+        } while (s >= 1 || s == 0);
+        double multiplier = StrictMath.sqrt(-2 * StrictMath.log(s) / s);
+        this.nextNextGaussian = v2 * multiplier;
+        this.haveNextNextGaussian = true;
+        return v1 * multiplier;
+    }
+
+    /** Returns state of generator, see {@link #setState(long, double, boolean)} */
+    public long getState() {
+        return this.state;
+    }
+
+    public double getNextNextGaussian() {
+        return this.nextNextGaussian;
+    }
+
+    public boolean hasNextNextGaussian() {
+        return this.haveNextNextGaussian;
+    }
+
+    /** Restores state returned by {@link #getState()}, {@link #getNextNextGaussian()} and {@link #hasNextNextGaussian()} */
+    public void setState(final long state, final double nextNextGaussian, final boolean haveNextNextGaussian) {
+        this.state = state & MASK;
+        this.nextNextGaussian = nextNextGaussian;
+        this.haveNextNextGaussian = haveNextNextGaussian;
+    }
+}
@@ -0,0 +1,121 @@
+package pl.edu.agh.flowshop.utils;
+
+import pl.edu.agh.flowshop.engine.TraceRecorder;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Converts traces written by {@link TraceRecorder} to CSV.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+public class TraceReader {
+
+    /** Header of CSV output */
+    private static final String CSV_HEADER = "turn,event,source,value1,value2";
+
+    /** Trace directory with segment files */
+    private final Path directory;
+
+    public TraceReader(final Path directory) {
+        this.directory = directory;
+    }
+
+    /** Converts trace from directory given as first argument to CSV file given as second one, or standard output */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: TraceReader <trace directory> [output.csv]");
+            return;
+        }
+
+        TraceReader reader = new TraceReader(Paths.get(args[0]));
+        if (args.length > 1) {
+            try (Writer writer = Files.newBufferedWriter(Paths.get(args[1]), StandardCharsets.UTF_8)) {
+                reader.writeCsv(writer);
+            }
+        } else {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+            reader.writeCsv(writer);
+            writer.flush();
+        }
+    }
+
+    /** Writes all records of trace, in order of recording, as CSV */
+    public void writeCsv(final Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        for (Path segment : getSegments()) {
+            ByteBuffer records = readSegment(segment);
+            while (records.remaining() >= TraceRecorder.RECORD_SIZE) {
+                int turnNo = records.getInt();
+                int type = records.getInt();
+                writer.write(turnNo + "," + getEventName(type) + "," + records.getInt() + "," + records.getInt() + ","
+                        + records.getInt() + "\n");
+            }
+        }
+    }
+
+    /** Returns segment files of trace, in order of writing */
+    private List<Path> getSegments() throws IOException {
+        List<Path> result = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory,
+                "*" + TraceRecorder.SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                result.add(path);
+            }
+        }
+        // segment names are zero padded, so name order is writing order
+        Collections.sort(result);
+        return result;
+    }
+
+    /** Reads written records of segment */
+    private static ByteBuffer readSegment(final Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(TraceRecorder.HEADER_SIZE);
+            readFully(channel, header);
+            header.flip();
+            if (header.getInt() != TraceRecorder.MAGIC) {
+                throw new IOException("Not a trace segment: " + segment);
+            }
+            int version = header.getInt();
+            int recordSize = header.getInt();
+            if (version != TraceRecorder.VERSION || recordSize != TraceRecorder.RECORD_SIZE) {
+                throw new IOException("Unsupported trace segment version " + version + ": " + segment);
+            }
+
+            ByteBuffer records = ByteBuffer.allocate(header.getInt() * recordSize);
+            readFully(channel, records);
+            records.flip();
+            return records;
+        }
+    }
+
+    private static void readFully(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Unexpected end of trace segment.");
+            }
+        }
+    }
+
+    private static String getEventName(final int type) {
+        return type >= 0 && type < TraceRecorder.EVENT_NAMES.length ? TraceRecorder.EVENT_NAMES[type]
+                : String.valueOf(type);
+    }
+}
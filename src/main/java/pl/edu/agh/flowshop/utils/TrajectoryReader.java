@@ -0,0 +1,169 @@
+package pl.edu.agh.flowshop.utils;
+
+import pl.edu.agh.flowshop.engine.TrajectoryRecorder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads trajectories written by {@link TrajectoryRecorder} in any of its formats, segments are read in order of
+ * writing and records are passed to {@link Visitor}.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+public class TrajectoryReader {
+
+    /** Trajectory directory with segment files */
+    private final Path directory;
+
+    /** Number of features of states, records of other number are rejected */
+    private final int featuresNo;
+
+    public TrajectoryReader(final Path directory, final int featuresNo) {
+        this.directory = directory;
+        this.featuresNo = featuresNo;
+    }
+
+    /** Receiver of read records, given arrays are reused between records */
+    public interface Visitor {
+
+        /** Receives training example: features values, label and cumulative reward of delivery */
+        void example(int turnNo, int[] features, int label, double reward) throws Exception;
+
+        /** Receives step of reinforcement learning agent of given machine */
+        void step(int turnNo, int machineId, int[] state, int action, double reward, int[] nextState)
+                throws Exception;
+    }
+
+    /** Passes all records of trajectory, in order of recording, to given visitor */
+    public void read(final Visitor visitor) throws Exception {
+        int[] state = new int[this.featuresNo];
+        int[] nextState = new int[this.featuresNo];
+        for (Path segment : getSegments()) {
+            if (segment.getFileName().toString().endsWith(TrajectoryRecorder.ARFF_SUFFIX)) {
+                readArffSegment(segment, visitor, state, nextState);
+            } else {
+                readBinarySegment(segment, visitor, state, nextState);
+            }
+        }
+    }
+
+    /** Returns segment files of trajectory, in order of writing */
+    private List<Path> getSegments() throws IOException {
+        List<Path> result = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory,
+                "*{" + TrajectoryRecorder.BINARY_SUFFIX + "," + TrajectoryRecorder.ARFF_SUFFIX + "}")) {
+            for (Path path : stream) {
+                result.add(path);
+            }
+        }
+        // segment names are zero padded, so name order is writing order
+        Collections.sort(result);
+        return result;
+    }
+
+    private void readBinarySegment(final Path segment, final Visitor visitor, final int[] state,
+                                   final int[] nextState) throws Exception {
+        ByteBuffer records;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(TrajectoryRecorder.HEADER_SIZE);
+            readFully(channel, header);
+            header.flip();
+            if (header.getInt() != TrajectoryRecorder.MAGIC) {
+                throw new IOException("Not a trajectory segment: " + segment);
+            }
+            int version = header.getInt();
+            if (version != TrajectoryRecorder.VERSION) {
+                throw new IOException("Unsupported trajectory segment version " + version + ": " + segment);
+            }
+            int featuresNo = header.getInt();
+            int recordSize = header.getInt();
+            if (featuresNo != this.featuresNo || recordSize != TrajectoryRecorder.getRecordSize(featuresNo)) {
+                throw new IOException("Trajectory segment has " + featuresNo + " features, expected "
+                        + this.featuresNo + ": " + segment);
+            }
+
+            records = ByteBuffer.allocate(header.getInt() * recordSize);
+            readFully(channel, records);
+            records.flip();
+        }
+
+        while (records.hasRemaining()) {
+            int turnNo = records.getInt();
+            int source = records.getInt();
+            int action = records.getInt();
+            double reward = records.getDouble();
+            records.asIntBuffer().get(state);
+            records.position(records.position() + 4 * state.length);
+            records.asIntBuffer().get(nextState);
+            records.position(records.position() + 4 * nextState.length);
+            if (source == TrajectoryRecorder.EXAMPLE_SOURCE) {
+                visitor.example(turnNo, state, action, reward);
+            } else {
+                visitor.step(turnNo, source, state, action, reward, nextState);
+            }
+        }
+    }
+
+    private void readArffSegment(final Path segment, final Visitor visitor, final int[] state,
+                                 final int[] nextState) throws Exception {
+        int columnsNo = 4 + 2 * this.featuresNo;
+        try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.UTF_8)) {
+            String line;
+            int attributesNo = 0;
+            while ((line = reader.readLine()) != null && !line.trim().equalsIgnoreCase("@data")) {
+                if (line.trim().toLowerCase().startsWith("@attribute")) {
+                    attributesNo++;
+                }
+            }
+            if (attributesNo != columnsNo) {
+                throw new IOException("Trajectory segment has " + attributesNo + " attributes, expected "
+                        + columnsNo + ": " + segment);
+            }
+
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String[] values = line.split(",");
+                if (values.length != columnsNo) {
+                    throw new IOException("Malformed trajectory record \"" + line + "\" in " + segment);
+                }
+                int turnNo = Integer.parseInt(values[0]);
+                int source = Integer.parseInt(values[1]);
+                double reward = Double.parseDouble(values[2]);
+                for (int i = 0; i < this.featuresNo; i++) {
+                    state[i] = Integer.parseInt(values[3 + i]);
+                }
+                int action = Integer.parseInt(values[columnsNo - 1]);
+                if (source == TrajectoryRecorder.EXAMPLE_SOURCE) {
+                    visitor.example(turnNo, state, action, reward);
+                } else {
+                    for (int i = 0; i < this.featuresNo; i++) {
+                        nextState[i] = Integer.parseInt(values[3 + this.featuresNo + i]);
+                    }
+                    visitor.step(turnNo, source, state, action, reward, nextState);
+                }
+            }
+        }
+    }
+
+    private static void readFully(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Unexpected end of trajectory segment.");
+            }
+        }
+    }
+}
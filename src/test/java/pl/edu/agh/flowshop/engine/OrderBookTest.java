@@ -0,0 +1,114 @@
+package pl.edu.agh.flowshop.engine;
+
+import org.junit.Test;
+import pl.edu.agh.flowshop.entity.Order;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that {@link OrderBook} delivers the same orders, in the same order, as single pass over list of open orders
+ * in generation order, which it replaced. Orders of the same priority are compared, as priorities were not used
+ * for delivery before.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+public class OrderBookTest {
+
+    private static final int PRODUCT_TYPES_NO = 4;
+
+    private static final int TURNS_NO = 2000;
+
+    @Test
+    public void deliversLikeListOfOpenOrders() {
+        Random random = new Random(42);
+        OrderBook book = new OrderBook(PRODUCT_TYPES_NO);
+        List<Order> list = new LinkedList<>();
+        int[] bookStock = new int[PRODUCT_TYPES_NO];
+        int[] listStock = new int[PRODUCT_TYPES_NO];
+        long number = 0;
+
+        for (int turnNo = 0; turnNo < TURNS_NO; turnNo++) {
+            if (random.nextInt(3) == 0) {
+                Order order = createOrder(random, number++, turnNo);
+                book.add(order);
+                list.add(order);
+            }
+            int product = random.nextInt(PRODUCT_TYPES_NO);
+            int quantity = random.nextInt(4);
+            bookStock[product] += quantity;
+            listStock[product] += quantity;
+
+            assertEquals("Turn " + turnNo, deliverFromList(list, listStock), deliverFromBook(book, bookStock));
+            assertEquals(list.size(), book.size());
+        }
+    }
+
+    @Test
+    public void keepsOrdersWhichCanNotBeCompleted() {
+        OrderBook book = new OrderBook(2);
+        Order order = new Order(0, new int[]{2, 1}, 10, 5, 1, 5);
+        book.add(order);
+
+        assertEquals(null, book.pollDeliverable(new int[]{2, 0}));
+        assertEquals(null, book.pollDeliverable(new int[]{1, 1}));
+        assertEquals(1, book.size());
+        assertEquals(order, book.pollDeliverable(new int[]{2, 1}));
+        assertEquals(0, book.size());
+    }
+
+    /** Order of one or two product types, all orders have the same priority */
+    private static Order createOrder(final Random random, final long number, final int turnNo) {
+        int[] products = new int[PRODUCT_TYPES_NO];
+        products[random.nextInt(PRODUCT_TYPES_NO)] += random.nextInt(5) + 1;
+        if (random.nextBoolean()) {
+            products[random.nextInt(PRODUCT_TYPES_NO)] += random.nextInt(3) + 1;
+        }
+        return new Order(number, products, turnNo + 20, 5, 1, 5);
+    }
+
+    /** Delivery as it was done before order book: one pass over open orders, taking products of completed ones */
+    private static List<Order> deliverFromList(final List<Order> orders, final int[] stock) {
+        List<Order> result = new ArrayList<>();
+        for (Iterator<Order> it = orders.iterator(); it.hasNext(); ) {
+            Order order = it.next();
+            if (canComplete(order, stock)) {
+                it.remove();
+                take(order, stock);
+                result.add(order);
+            }
+        }
+        return result;
+    }
+
+    private static List<Order> deliverFromBook(final OrderBook book, final int[] stock) {
+        List<Order> result = new ArrayList<>();
+        Order order;
+        while ((order = book.pollDeliverable(stock)) != null) {
+            take(order, stock);
+            result.add(order);
+        }
+        return result;
+    }
+
+    private static boolean canComplete(final Order order, final int[] stock) {
+        for (int i = 0; i < stock.length; i++) {
+            if (order.getProductsList()[i] > stock[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void take(final Order order, final int[] stock) {
+        for (int i = 0; i < stock.length; i++) {
+            stock[i] -= order.getProductsList()[i];
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package pl.edu.agh.flowshop.engine;
+
+import org.junit.Test;
+import pl.edu.agh.flowshop.entity.Action;
+import pl.edu.agh.flowshop.entity.AgentState;
+import qlearning.RewardMemorizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that {@link QTable} stores the same Q-values as piqle {@link RewardMemorizer}, which it replaced, also after
+ * it grows and after it widens values from 16 to 32 bits.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+public class QTableTest {
+
+    private static final int STATE_WIDTH = 7;
+
+    private static final int ACTIONS_NO = 3;
+
+    @Test
+    public void storesSameValuesAsRewardMemorizer() {
+        Random random = new Random(42);
+        QTable table = new QTable(STATE_WIDTH, ACTIONS_NO);
+        RewardMemorizer memorizer = new RewardMemorizer();
+        List<AgentState> states = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            states.add(createState(random, 10));
+        }
+
+        for (int i = 0; i < 20000; i++) {
+            AgentState state = states.get(random.nextInt(states.size()));
+            Action action = new Action(0, random.nextInt(ACTIONS_NO));
+            if (random.nextBoolean()) {
+                double value = random.nextDouble();
+                table.put(state, action, null, value);
+                memorizer.put(state, action, null, value);
+            }
+            assertEquals(memorizer.get(state, action), table.get(state, action), 0);
+        }
+        assertAllEqual(memorizer, table, states);
+    }
+
+    @Test
+    public void keepsValuesWhenWidened() {
+        Random random = new Random(7);
+        QTable table = new QTable(STATE_WIDTH, ACTIONS_NO);
+        RewardMemorizer memorizer = new RewardMemorizer();
+        List<AgentState> states = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            AgentState state = createState(random, 1 << 16);
+            states.add(state);
+            putAll(random, table, memorizer, state);
+        }
+
+        // value which does not fit into 16 bits, looking it up rebuilds table with 32 bits per value
+        int[] values = createState(random, 10).getAttrValues();
+        values[STATE_WIDTH - 1] = 1 << 16;
+        AgentState wide = new AgentState(null, values);
+        assertEquals(0, table.get(wide, new Action(0, 0)), 0);
+        states.add(wide);
+        putAll(random, table, memorizer, wide);
+
+        // copy of value differing only in bits above 16 is another state
+        values = values.clone();
+        values[STATE_WIDTH - 1] = 0;
+        AgentState narrow = new AgentState(null, values);
+        states.add(narrow);
+        putAll(random, table, memorizer, narrow);
+
+        assertAllEqual(memorizer, table, states);
+        assertEquals(states.size(), table.size());
+    }
+
+    @Test
+    public void returnsZeroForUnknownStates() {
+        QTable table = new QTable(STATE_WIDTH, ACTIONS_NO);
+        assertEquals(0, table.get(createState(new Random(1), 10), new Action(0, 1)), 0);
+        assertEquals(0, table.get(null, new Action(0, 1)), 0);
+    }
+
+    /** Creates state with values from 0 to given bound, arrays are new, so states are not found by identity */
+    private static AgentState createState(final Random random, final int bound) {
+        int[] values = new int[STATE_WIDTH];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(bound);
+        }
+        return new AgentState(null, values);
+    }
+
+    private static void putAll(final Random random, final QTable table, final RewardMemorizer memorizer,
+                               final AgentState state) {
+        for (int product = 0; product < ACTIONS_NO; product++) {
+            double value = random.nextDouble();
+            table.put(state, new Action(0, product), null, value);
+            memorizer.put(state, new Action(0, product), null, value);
+        }
+    }
+
+    /** Compares values of all actions of given states, looked up with equal copies of states */
+    private static void assertAllEqual(final RewardMemorizer memorizer, final QTable table,
+                                       final List<AgentState> states) {
+        for (AgentState state : states) {
+            AgentState copy = new AgentState(null, state.getAttrValues().clone());
+            for (int product = 0; product < ACTIONS_NO; product++) {
+                Action action = new Action(1, product);
+                assertEquals(memorizer.get(copy, action), table.get(copy, action), 0);
+            }
+        }
+    }
+}
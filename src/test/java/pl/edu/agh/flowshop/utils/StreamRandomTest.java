@@ -0,0 +1,71 @@
+package pl.edu.agh.flowshop.utils;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that {@link StreamRandom} generates the same sequence as {@link Random} and continues it after its state is
+ * restored.
+ *
+ * @author Bartosz Sądel
+ *         Created on 18.10.2026.
+ */
+public class StreamRandomTest {
+
+    private static final int DRAWS_NO = 1000;
+
+    @Test
+    public void generatesSameSequenceAsRandom() {
+        Random expected = new Random(42);
+        StreamRandom random = new StreamRandom(42);
+        for (int i = 0; i < DRAWS_NO; i++) {
+            assertEquals(expected.nextInt(), random.nextInt());
+            assertEquals(expected.nextInt(17), random.nextInt(17));
+            assertEquals(expected.nextLong(), random.nextLong());
+            assertEquals(expected.nextDouble(), random.nextDouble(), 0);
+            assertEquals(expected.nextGaussian(), random.nextGaussian(), 0);
+        }
+    }
+
+    @Test
+    public void continuesSequenceAfterRestore() {
+        StreamRandom random = new StreamRandom(7);
+        random.nextInt();
+        // saved between two gaussian values of one pair, so cached value is part of state
+        random.nextGaussian();
+        long state = random.getState();
+        double nextNextGaussian = random.getNextNextGaussian();
+        boolean haveNextNextGaussian = random.hasNextNextGaussian();
+
+        double[] sequence = draw(random);
+
+        StreamRandom restored = new StreamRandom(123);
+        restored.nextGaussian();
+        restored.setState(state, nextNextGaussian, haveNextNextGaussian);
+        assertSequence(sequence, draw(restored));
+
+        // the same generator is restored in place
+        random.setState(state, nextNextGaussian, haveNextNextGaussian);
+        assertSequence(sequence, draw(random));
+    }
+
+    private static double[] draw(final StreamRandom random) {
+        double[] result = new double[4 * DRAWS_NO];
+        for (int i = 0; i < DRAWS_NO; i++) {
+            result[4 * i] = random.nextGaussian();
+            result[4 * i + 1] = random.nextInt(100);
+            result[4 * i + 2] = random.nextDouble();
+            result[4 * i + 3] = random.nextLong();
+        }
+        return result;
+    }
+
+    private static void assertSequence(final double[] expected, final double[] actual) {
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals("Draw " + i, expected[i], actual[i], 0);
+        }
+    }
+}